@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * The level of detail that menus with adaptive quality animate with. Menus measure the frames of
+ * their transitions, and when transitions keep dropping frames the level steps down. The level is
+ * kept in the shared preferences of the app, so later launches on the same device start at the
+ * level that was reached.
+ *
+ * @see FloatingActionMenu#setAdaptiveQuality(boolean)
+ */
+public final class AnimationQuality {
+
+    /**
+     * Every animation plays as set up
+     */
+    public static final int QUALITY_FULL = 0;
+    /**
+     * The delay between the items is halved
+     */
+    public static final int QUALITY_SHORT_STAGGER = 1;
+    /**
+     * The background does not fade, it is set right away
+     */
+    public static final int QUALITY_NO_SCRIM = 2;
+    /**
+     * The items drop their elevation while they animate
+     */
+    public static final int QUALITY_NO_ELEVATION = 3;
+    /**
+     * Nothing animates, the menu opens and closes right away
+     */
+    public static final int QUALITY_INSTANT = 4;
+
+    @IntDef({QUALITY_FULL, QUALITY_SHORT_STAGGER, QUALITY_NO_SCRIM, QUALITY_NO_ELEVATION,
+            QUALITY_INSTANT})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Level {}
+
+    private static final String PREFS_NAME = "com.wanderingcan.floatingactionmenu.quality";
+    private static final String KEY_LEVEL = "level";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+
+    /**
+     * The share of dropped frames that makes a transition janky
+     */
+    private static final float JANK_RATIO = 0.25f;
+    /**
+     * Transitions with fewer frames are too short to tell
+     */
+    private static final int MIN_FRAMES = 6;
+    /**
+     * The number of janky transitions in a row that steps the level down
+     */
+    private static final int JANKY_TRANSITIONS = 2;
+
+    private static AnimationQuality sInstance;
+
+    private final SharedPreferences mPreferences;
+    private int mLevel;
+    private int mJankyTransitions;
+
+    private AnimationQuality(Context context) {
+        mPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        //A system update can change how the device performs, so it starts over
+        if (Build.FINGERPRINT.equals(mPreferences.getString(KEY_FINGERPRINT, null))) {
+            mLevel = clampLevel(mPreferences.getInt(KEY_LEVEL, QUALITY_FULL));
+        } else {
+            mLevel = QUALITY_FULL;
+        }
+    }
+
+    /**
+     * Gets the quality of the device the app runs on
+     */
+    @NonNull
+    public static synchronized AnimationQuality get(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new AnimationQuality(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Gets the level that menus with adaptive quality animate with
+     */
+    @Level
+    public int getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * Sets the level that menus with adaptive quality animate with and keeps it for later launches
+     */
+    public void setLevel(@Level int level) {
+        mLevel = clampLevel(level);
+        mJankyTransitions = 0;
+        mPreferences.edit()
+                .putInt(KEY_LEVEL, mLevel)
+                .putString(KEY_FINGERPRINT, Build.FINGERPRINT)
+                .apply();
+    }
+
+    /**
+     * Records the frames of a transition, and steps the level down after a number of janky
+     * transitions in a row
+     */
+    void onTransitionMeasured(int frames, int droppedFrames) {
+        if (frames < MIN_FRAMES || mLevel >= QUALITY_INSTANT) {
+            return;
+        }
+        if (droppedFrames > frames * JANK_RATIO) {
+            mJankyTransitions++;
+            if (mJankyTransitions >= JANKY_TRANSITIONS) {
+                setLevel(mLevel + 1);
+            }
+        } else {
+            mJankyTransitions = 0;
+        }
+    }
+
+    private static int clampLevel(int level) {
+        return Math.max(QUALITY_FULL, Math.min(QUALITY_INSTANT, level));
+    }
+}
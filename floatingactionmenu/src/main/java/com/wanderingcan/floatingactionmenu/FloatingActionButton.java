@@ -17,13 +17,23 @@
 package com.wanderingcan.floatingactionmenu;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
-import android.os.Handler;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.ColorInt;
+import android.support.annotation.DrawableRes;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
 import android.util.AttributeSet;
+import android.view.ViewParent;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 
+import com.wanderingcan.floatingactionmenu.internal.HandlerScheduler;
+import com.wanderingcan.floatingactionmenu.internal.PendingHide;
+import com.wanderingcan.floatingactionmenu.internal.Scheduler;
 import com.wanderingcan.floatingactionmenu.R;
 
 
@@ -33,11 +43,27 @@ import com.wanderingcan.floatingactionmenu.R;
  */
 public class FloatingActionButton extends android.support.design.widget.FloatingActionButton {
 
+    public static final int SIZE_NORMAL = 0;
+    public static final int SIZE_MINI = 1;
+
     private String mLabelText;
+    private int mButtonSize;
     private Animation mShowAnimation;
     private Animation mHideAnimation;
 
-    private static final Handler mHandler = new Handler();
+    private float mSuppressedElevation = Float.NaN;
+    private IconLoader mIconLoader;
+    private ColorStateList mDefaultBackgroundTint;
+    private float mDefaultElevation;
+    private IconLoader.Callback mIconCallback;
+    private IconLoader.Request mIconRequest;
+
+    private final PendingHide mPendingHide = new PendingHide(new Runnable() {
+        @Override
+        public void run() {
+            setVisibility(INVISIBLE);
+        }
+    }, HandlerScheduler.getMainScheduler());
 
     public FloatingActionButton(Context context) {
         super(context);
@@ -58,7 +84,16 @@ public class FloatingActionButton extends android.support.design.widget.Floating
         TypedArray attr = context.obtainStyledAttributes(attrs,
                 R.styleable.FloatingActionButton, defStyleAttr, 0);
         mLabelText = attr.getString(R.styleable.FloatingActionButton_label);
+        mButtonSize = attr.getInt(R.styleable.FloatingActionButton_fabSize, SIZE_NORMAL);
+        loadDefaultAnimations();
+        attr.recycle();
 
+        //Kept so a pooled button can go back to how it was inflated
+        mDefaultBackgroundTint = getBackgroundTintList();
+        mDefaultElevation = ViewCompat.getElevation(this);
+    }
+
+    private void loadDefaultAnimations() {
         mShowAnimation = AnimationUtils.loadAnimation(getContext(), R.anim.fab_in);
         mShowAnimation.setInterpolator(new FastOutSlowInInterpolator());
         mShowAnimation.setDuration(FloatingActionMenu.ANIMATION_DURATION);
@@ -66,8 +101,6 @@ public class FloatingActionButton extends android.support.design.widget.Floating
         mHideAnimation = AnimationUtils.loadAnimation(getContext(), R.anim.fab_out);
         mHideAnimation.setInterpolator(new FastOutSlowInInterpolator());
         mHideAnimation.setDuration(FloatingActionMenu.ANIMATION_DURATION);
-
-        attr.recycle();
     }
 
     /**
@@ -173,7 +206,12 @@ public class FloatingActionButton extends android.support.design.widget.Floating
      * @param animate if true plays "show animation"
      */
     void show(boolean animate) {
-        if (isHidden()) {
+        //A hide that is still playing is cut short, the view shows again from where it is
+        boolean hiding = mPendingHide.cancel();
+        if (hiding) {
+            clearAnimation();
+        }
+        if (hiding || isHidden()) {
             if (animate) {
                 playShowAnimation();
             }
@@ -190,17 +228,219 @@ public class FloatingActionButton extends android.support.design.widget.Floating
     void hide(boolean animate) {
         if (!isHidden()) {
             if (animate) {
-                playHideAnimation();
+                //A hide that is already playing keeps going
+                if (!mPendingHide.isPending()) {
+                    playHideAnimation();
+                    mPendingHide.post(mHideAnimation.getDuration());
+                }
+            } else {
+                //Nothing has to wait, so nothing is posted
+                mPendingHide.cancel();
+                clearAnimation();
+                setVisibility(INVISIBLE);
             }
-            mHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    setVisibility(INVISIBLE);
+        }
+    }
+
+    /**
+     * Ends the show or hide animation that is playing, a pending hide takes effect right away.
+     * Also ends the animations of the attached LabelView.
+     */
+    void finishAnimations() {
+        clearAnimation();
+        mPendingHide.finish();
+        LabelView label = getLabelView();
+        if (label != null) {
+            label.finishAnimations();
+        }
+    }
+
+    /**
+     * Gets the size the Floating Action Button was created with
+     *
+     * @return {@link #SIZE_NORMAL} or {@link #SIZE_MINI}
+     */
+    public int getButtonSize() {
+        return mButtonSize;
+    }
+
+    /**
+     * Sets the scheduler that times the end of the hide animation. A hide that is still pending is
+     * finished right away on the new scheduler.
+     */
+    void setScheduler(Scheduler scheduler) {
+        mPendingHide.setScheduler(scheduler);
+        LabelView label = getLabelView();
+        if (label != null) {
+            label.setScheduler(scheduler);
+        }
+    }
+
+    /**
+     * Drops the elevation of the Floating Action Button and its attached LabelView to zero until
+     * {@link #restoreElevation()} is called. Suppressing an already suppressed button keeps the
+     * elevation that was saved first.
+     */
+    void suppressElevation() {
+        if (Float.isNaN(mSuppressedElevation)) {
+            mSuppressedElevation = ViewCompat.getElevation(this);
+            ViewCompat.setElevation(this, 0f);
+        }
+        LabelView label = getLabelView();
+        if (label != null) {
+            label.suppressElevation();
+        }
+    }
+
+    /**
+     * Gives the Floating Action Button and its attached LabelView back the elevation they had
+     * before {@link #suppressElevation()} was called
+     */
+    void restoreElevation() {
+        if (!Float.isNaN(mSuppressedElevation)) {
+            ViewCompat.setElevation(this, mSuppressedElevation);
+            mSuppressedElevation = Float.NaN;
+        }
+        LabelView label = getLabelView();
+        if (label != null) {
+            label.restoreElevation();
+        }
+    }
+
+    /**
+     * Resets the Floating Action Button to the state of a newly created button, so it can be reused
+     * through a {@link MenuViewPool}. Everything a menu or an adapter sets on the button is undone,
+     * the size can not change and stays. The attached LabelView is detached but not reset.
+     */
+    public void reset() {
+        mPendingHide.cancel();
+        cancelIconRequest();
+        mIconLoader = null;
+        clearAnimation();
+        restoreElevation();
+        ViewCompat.setElevation(this, mDefaultElevation);
+        setBackgroundTintList(mDefaultBackgroundTint);
+        loadDefaultAnimations();
+        mPendingHide.setScheduler(HandlerScheduler.getMainScheduler());
+        setLabelView(null);
+        mLabelText = null;
+        setImageDrawable(null);
+        setOnClickListener(null);
+        setTag(R.id.fab_item_id, null);
+        setTag(R.id.fab_stagger_step, null);
+        setTag(R.id.fab_snapshot, null);
+        setTag(R.id.fab_snapshot_bounds, null);
+        setEnabled(true);
+        setVisibility(VISIBLE);
+        setRotation(0f);
+        setScaleX(1f);
+        setScaleY(1f);
+        setAlpha(1f);
+        setTranslationX(0f);
+        setTranslationY(0f);
+    }
+
+    /**
+     * Sets the icon of the Floating Action Button, an icon that is still being decoded for
+     * {@link #setIcon(IconSource, Drawable)} is dropped so it does not replace this one
+     */
+    @Override
+    public void setImageDrawable(Drawable drawable) {
+        cancelIconRequest();
+        applyIcon(drawable);
+    }
+
+    private void applyIcon(Drawable drawable) {
+        super.setImageDrawable(drawable);
+        ViewParent parent = getParent();
+        if (parent instanceof FloatingActionMenu) {
+            ((FloatingActionMenu) parent).invalidateSnapshot();
+        }
+    }
+
+    /**
+     * Sets the icon of the Floating Action Button from the shared {@link IconCache}, so buttons
+     * with the same icon do not decode it again
+     */
+    @Override
+    public void setImageResource(@DrawableRes int resId) {
+        setIcon(resId, IconCache.NO_TINT);
+    }
+
+    /**
+     * Sets the icon of the Floating Action Button tinted with the color from the shared
+     * {@link IconCache}, so buttons with the same icon and tint do not decode and tint it again
+     *
+     * @param tint the color the icon is tinted with, or {@link IconCache#NO_TINT}
+     */
+    public void setIcon(@DrawableRes int resId, @ColorInt int tint) {
+        setImageDrawable(IconCache.getDrawable(getContext(), resId, tint));
+    }
+
+    /**
+     * Sets the icon of the Floating Action Button from a source that is decoded in the background
+     * by the {@link IconLoader}. The placeholder is shown until the icon is decoded, and is kept if
+     * the icon can not be decoded.
+     *
+     * @param source the icon, decoded at the size of the icon of the button
+     * @param placeholder the drawable that is shown until the icon is ready, may be null
+     */
+    public void setIcon(IconSource source, Drawable placeholder) {
+        setImageDrawable(placeholder);
+        if (source == null) {
+            return;
+        }
+
+        //Only the callback of the latest request may set the icon
+        mIconCallback = new IconLoader.Callback() {
+            @Override
+            public void onIconLoaded(Bitmap icon) {
+                if (mIconCallback != this) {
+                    return;
                 }
-            }, animate ? mHideAnimation.getDuration() : 0);
+                mIconCallback = null;
+                mIconRequest = null;
+                if (icon != null) {
+                    applyIcon(new BitmapDrawable(getResources(), icon));
+                }
+            }
+        };
+        IconLoader.Request request = getIconLoader().load(source,
+                getResources().getDimensionPixelSize(R.dimen.fab_icon_size), mIconCallback);
+        //A cached icon is set before load returns, then there is nothing left to wait for
+        if (mIconCallback != null) {
+            mIconRequest = request;
         }
     }
 
+    /**
+     * Sets the loader that decodes the icons given to {@link #setIcon(IconSource, Drawable)}, null
+     * for {@link IconLoader#getDefault()}
+     */
+    public void setIconLoader(IconLoader loader) {
+        mIconLoader = loader;
+    }
+
+    private IconLoader getIconLoader() {
+        return mIconLoader != null ? mIconLoader : IconLoader.getDefault();
+    }
+
+    private void cancelIconRequest() {
+        mIconCallback = null;
+        if (mIconRequest != null) {
+            mIconRequest.cancel();
+            mIconRequest = null;
+        }
+    }
+
+    /**
+     * Binds an icon and a label text to the Floating Action Button
+     */
+    public void bind(Drawable icon, String labelText) {
+        setImageDrawable(icon);
+        setLabelText(labelText);
+    }
+
     /**
      * Sets the Text to be displayed by the LabelView attached to the Floating Action Button
      */
@@ -16,14 +16,15 @@
 
 package com.wanderingcan.floatingactionmenu;
 
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.database.DataSetObserver;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.Rect;
-import android.os.Handler;
+import android.graphics.RectF;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.AnimRes;
@@ -33,26 +34,42 @@ import android.support.annotation.NonNull;
 import android.support.annotation.StyleRes;
 import android.support.design.widget.CoordinatorLayout;
 import android.support.design.widget.Snackbar;
-import android.support.v4.content.ContextCompat;
+import android.support.v4.util.LongSparseArray;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.ContextThemeWrapper;
-import android.view.GestureDetector;
+import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.TouchDelegate;
+import android.view.ViewConfiguration;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.WindowManager;
 import android.view.animation.Animation;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
 import android.view.animation.OvershootInterpolator;
-
+import android.view.animation.Transformation;
+
+import com.wanderingcan.floatingactionmenu.internal.FrameMonitor;
+import com.wanderingcan.floatingactionmenu.internal.GridLayoutStrategy;
+import com.wanderingcan.floatingactionmenu.internal.HandlerScheduler;
+import com.wanderingcan.floatingactionmenu.internal.LinearLayoutStrategy;
+import com.wanderingcan.floatingactionmenu.internal.MenuStateMachine;
+import com.wanderingcan.floatingactionmenu.internal.RadialLayoutStrategy;
+import com.wanderingcan.floatingactionmenu.internal.Scheduler;
+import com.wanderingcan.floatingactionmenu.internal.OutsideTouchHandler;
 import com.wanderingcan.floatingactionmenu.internal.TouchDelegateGroup;
+import com.wanderingcan.floatingactionmenu.internal.ValueTrack;
 import com.wanderingcan.floatingactionmenu.R;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
 
 /**
  * A Menu that uses {@link FloatingActionButton} as buttons. This uses an extension of Android's Design
@@ -65,8 +82,10 @@ public class FloatingActionMenu extends ViewGroup {
     public static final int DOWN = 1;
     public static final int LEFT = 2;
     public static final int RIGHT = 3;
+    public static final int RADIAL = 4;
+    public static final int GRID = 5;
 
-    @IntDef({UP, DOWN, LEFT, RIGHT})
+    @IntDef({UP, DOWN, LEFT, RIGHT, RADIAL, GRID})
     @Retention(RetentionPolicy.SOURCE)
     public @interface MenuDirection {}
 
@@ -84,9 +103,34 @@ public class FloatingActionMenu extends ViewGroup {
     @Retention(RetentionPolicy.SOURCE)
     public @interface LabelsType {}
 
+    public static final int CLOSE_ON_UP = 0;
+    public static final int CLOSE_ON_DOWN = 1;
+    public static final int CLOSE_ON_DRAG = 2;
+
+    @IntDef({CLOSE_ON_UP, CLOSE_ON_DOWN, CLOSE_ON_DRAG})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface OutsideTouchMode {}
+
+    public static final int GRID_ROWS = 0;
+    public static final int GRID_COLUMNS = 1;
+
+    @IntDef({GRID_ROWS, GRID_COLUMNS})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface GridOrientation {}
+
     protected static final long ANIMATION_DURATION = 200;
     private static final float COLLAPSED_PLUS_ROTATION = 0f;
     private static final float EXPANDED_PLUS_ROTATION = 45f;
+    private static final Interpolator BACKGROUND_INTERPOLATOR =
+            new AccelerateDecelerateInterpolator();
+
+    private static final MenuLayoutStrategy LINEAR_LAYOUT = new LinearLayoutStrategy();
+
+    private static final int BATCH_LAYOUT = 1;
+    private static final int BATCH_CREATE_LABELS = 1 << 1;
+    private static final int BATCH_REBUILD_LABELS = 1 << 2;
+    private static final int BATCH_SHOW_ANIMATION = 1 << 3;
+    private static final int BATCH_HIDE_ANIMATION = 1 << 4;
 
     private int mExpandDirection;
 
@@ -94,146 +138,335 @@ public class FloatingActionMenu extends ViewGroup {
     private int mContentPadding;
     private int mLabelsMargin;
 
-    private boolean isMenuOpened;
-    private boolean isMenuAnimationRunning;
     private boolean isClosedOnTouchOutside;
 
     private FloatingActionButton mMenuButton;
-    private int mMaxButtonWidth;
-    private int mMaxButtonHeight;
     private int mLabelsStyle;
     private int mLabelsType;
     private int mLabelsPosition;
     private int mButtonsCount;
 
-    private Handler mUiHandler = new Handler();
+    private boolean mScrollable;
+    private boolean mInMeasure;
+    private boolean mIsScrolling;
+    private int mFirstVisiblePosition;
+    private int mWindowSize = 1;
+    private int mScrollOffset;
+    private int mScrollRange;
+    private int mItemStride;
+    private int mTouchSlop;
+    private float mLastTouchPosition;
+    private final Rect mItemsClip = new Rect();
+
+    private MenuLayoutStrategy mLayoutStrategy;
+    private RadialLayoutStrategy mRadialLayout;
+    private GridLayoutStrategy mGridLayout;
+    private final MenuGeometry mGeometry = new MenuGeometry(LINEAR_LAYOUT);
+    private MenuGeometry mPrecomputedGeometry;
+    private View[] mLayoutViews = new View[0];
+
+    private int mBatchDepth;
+    private int mPendingBatchFlags;
+
+    private Scheduler mScheduler = HandlerScheduler.getMainScheduler();
+    private FloatingActionButton[] mTransitionButtons = new FloatingActionButton[0];
+    private final MenuStateMachine.Renderer mStateRenderer = new MenuStateMachine.Renderer() {
+        @Override
+        public int getItemCount() {
+            return collectTransitionButtons();
+        }
+
+        @Override
+        public int getStaggerStep(int item) {
+            return FloatingActionMenu.this.getStaggerStep(mTransitionButtons[item], item);
+        }
+
+        @Override
+        public void onOpenStarted() {
+            mSnapshotActive = mSnapshotReady;
+            startTransitionQuality();
+            long scrimDuration = getScrimDuration();
+            if (mMenuGroup != null) {
+                mMenuGroup.onOpenStarted(FloatingActionMenu.this, scrimDuration);
+            } else if (isBackgroundEnabled()) {
+                mBackgroundTrack.animateTo(Color.alpha(mBackgroundColor), scrimDuration,
+                        BACKGROUND_INTERPOLATOR);
+            }
+
+            mTouchDelegateGroup.setEnabled(true);
+            mOutsideTouchHandler.setEnabled(true);
+            mRotationTrack.animateTo(EXPANDED_PLUS_ROTATION, getRotationDuration(),
+                    mOpenInterpolator);
+        }
+
+        @Override
+        public void onShowItem(int item) {
+            FloatingActionButton fab = mTransitionButtons[item];
+            boolean animate = mTransitionLevel < AnimationQuality.QUALITY_INSTANT;
+            if (animate && (mSuppressElevation
+                    || mTransitionLevel >= AnimationQuality.QUALITY_NO_ELEVATION)) {
+                fab.suppressElevation();
+            }
+            fab.show(animate);
+            LabelView label = fab.getLabelView();
+            if (label != null) {
+                label.show(animate);
+            }
+        }
+
+        @Override
+        public void onOpenFinished() {
+            clearTransitionButtons();
+            restoreItemElevations();
+            finishSnapshot();
+            finishTransitionQuality();
+            if (mMenuListener != null) {
+                mMenuListener.onMenuExpanded();
+            }
+        }
+
+        @Override
+        public void onCloseStarted() {
+            startTransitionQuality();
+            long scrimDuration = getScrimDuration();
+            if (mMenuGroup != null) {
+                mMenuGroup.onCloseStarted(FloatingActionMenu.this, scrimDuration);
+            } else if (isBackgroundEnabled()) {
+                mBackgroundTrack.animateTo(0f, scrimDuration, BACKGROUND_INTERPOLATOR);
+            }
+
+            mTouchDelegateGroup.setEnabled(false);
+            mOutsideTouchHandler.setEnabled(false);
+            mRotationTrack.animateTo(COLLAPSED_PLUS_ROTATION, getRotationDuration(),
+                    mCloseInterpolator);
+        }
+
+        @Override
+        public void onHideItem(int item) {
+            FloatingActionButton fab = mTransitionButtons[item];
+            boolean animate = mTransitionLevel < AnimationQuality.QUALITY_INSTANT;
+            if (animate && (mSuppressElevation
+                    || mTransitionLevel >= AnimationQuality.QUALITY_NO_ELEVATION)) {
+                fab.suppressElevation();
+            }
+            fab.hide(animate);
+            LabelView label = fab.getLabelView();
+            if (label != null) {
+                label.hide(animate);
+            }
+        }
+
+        @Override
+        public void onCloseFinished() {
+            clearTransitionButtons();
+            restoreItemElevations();
+            finishSnapshot();
+            finishTransitionQuality();
+            if (mMenuListener != null) {
+                mMenuListener.onMenuCollapsed();
+            }
+        }
+
+        @Override
+        public void onHideMenuButton() {
+            clearTransitionButtons();
+            restoreItemElevations();
+            finishSnapshot();
+            finishTransitionQuality();
+            mMenuButton.hide(getEffectiveLevel() < AnimationQuality.QUALITY_INSTANT);
+        }
+
+        @Override
+        public void onHidden() {
+            setVisibility(GONE);
+        }
+
+        @Override
+        public void onShown() {
+            clearTransitionButtons();
+            restoreItemElevations();
+            finishSnapshot();
+            finishTransitionQuality();
+            setVisibility(VISIBLE);
+            mMenuButton.show(getEffectiveLevel() < AnimationQuality.QUALITY_INSTANT);
+        }
+    };
+    private final MenuStateMachine mStateMachine = new MenuStateMachine(mStateRenderer, mScheduler);
 
     private long mAnimationDelayPerItem;
     private int mBackgroundColor;
     private int mMenuShowAnimation;
     private int mMenuHideAnimation;
-    private AnimatorSet mExpandAnimation = new AnimatorSet();
-    private AnimatorSet mCollapseAnimation = new AnimatorSet();
-    private ValueAnimator mShowBackgroundAnimator;
-    private ValueAnimator mHideBackgroundAnimator;
+    private Interpolator mOpenInterpolator = new OvershootInterpolator(5f);
+    private Interpolator mCloseInterpolator = new OvershootInterpolator(5f);
+    private int mScrimAlpha;
+    private final ValueTrack.Group mTrackGroup = new ValueTrack.Group(new ValueTrack.Group.Target() {
+        @Override
+        public void onValues() {
+            //The rotation is a render property of the button, only the scrim redraws the menu
+            mMenuButton.setRotation(mRotationTrack.getValue());
+            int alpha = Math.round(mBackgroundTrack.getValue());
+            if (alpha != mScrimAlpha) {
+                mScrimAlpha = alpha;
+                invalidate();
+            }
+        }
+    }, mScheduler);
+    private final ValueTrack mRotationTrack = new ValueTrack(mTrackGroup, COLLAPSED_PLUS_ROTATION);
+    private final ValueTrack mBackgroundTrack = new ValueTrack(mTrackGroup, 0f);
     private long mAnimationDuration;
     private boolean mFillParent;
+    private boolean mSuppressElevation;
+    private boolean mAdaptiveQuality;
+    private int mTransitionLevel = AnimationQuality.QUALITY_FULL;
+    private boolean mWindowVisible = true;
+    private final Rect mVisibleRect = new Rect();
+    private final FrameMonitor mFrameMonitor = new FrameMonitor(mScheduler);
+
+    private boolean mSnapshotEnabled;
+    private boolean mSnapshotReady;
+    private boolean mSnapshotActive;
+    private boolean mSnapshotUsed;
+    private final Transformation mSnapshotTransformation = new Transformation();
+    private final Paint mSnapshotPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix mSnapshotMatrix = new Matrix();
+    private final RectF mSnapshotBounds = new RectF();
+    private final Rect mAnimatingBounds = new Rect();
+    private final Runnable mSnapshotRunnable = new Runnable() {
+        @Override
+        public void run() {
+            buildSnapshot();
+        }
+    };
+    private MenuGroup mMenuGroup;
 
     private TouchDelegateGroup mTouchDelegateGroup;
+    private OutsideTouchHandler mOutsideTouchHandler;
 
     private OnFloatingActionsMenuUpdateListener mMenuListener;
+    private OnMenuItemClickListener mItemClickListener;
+
+    private MenuAdapter mAdapter;
+    private boolean mAttachedToWindow;
+    private MenuViewPool mViewPool;
+    private MenuViewPool mScrollPool;
+    private LongSparseArray<FloatingActionButton> mAdapterButtons = new LongSparseArray<>();
+    private final DataSetObserver mAdapterObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            applyAdapterChanges();
+        }
 
-    GestureDetector mGestureDetector = new GestureDetector(getContext(),
-            new GestureDetector.SimpleOnGestureListener() {
+        @Override
+        public void onInvalidated() {
+            applyAdapterChanges();
+        }
+    };
 
-                @Override
-                public boolean onDown(MotionEvent e) {
-                    return isClosedOnTouchOutside && isMenuOpened;
-                }
+    private final OnClickListener mAdapterButtonClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            if (mItemClickListener != null) {
+                mItemClickListener.onMenuItemClick(FloatingActionMenu.this,
+                        (Long) v.getTag(R.id.fab_item_id));
+            }
+        }
+    };
 
-                @Override
-                public boolean onSingleTapUp(MotionEvent e) {
-                    close();
-                    return true;
-                }
-            });
+    private final Runnable mCloseRunnable = new Runnable() {
+        @Override
+        public void run() {
+            close();
+        }
+    };
 
     public interface OnFloatingActionsMenuUpdateListener {
         void onMenuExpanded();
         void onMenuCollapsed();
     }
 
+    /**
+     * Listener for clicks on the Floating Action Buttons that are created from a {@link MenuAdapter}
+     */
+    public interface OnMenuItemClickListener {
+        void onMenuItemClick(FloatingActionMenu menu, long itemId);
+    }
+
     public FloatingActionMenu(Context context) {
         super(context);
-        initialize(context, null, 0);
+        initialize(context, null, MenuSpec.create(context, null, 0, 0));
     }
 
     public FloatingActionMenu(Context context, AttributeSet attrs) {
         super(context, attrs);
-        initialize(context, attrs, 0);
+        initialize(context, attrs, MenuSpec.create(context, attrs, 0, 0));
     }
 
     public FloatingActionMenu(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        initialize(context, attrs, defStyleAttr);
+        initialize(context, attrs, MenuSpec.create(context, attrs, defStyleAttr, 0));
     }
 
-    private void initialize(Context context, AttributeSet attrs, int defStyleAttr) {
-        mLabelsMargin = getResources().getDimensionPixelSize(R.dimen.fab_labels_margin);
+    /**
+     * Creates a Floating Action Menu from an already resolved MenuSpec. No attributes are resolved
+     * when the menu is created this way.
+     *
+     * @see MenuSpec#obtain(Context, int)
+     */
+    public FloatingActionMenu(Context context, @NonNull MenuSpec spec) {
+        super(context);
+        initialize(context, null, spec);
+    }
 
-        TypedArray attr = context.obtainStyledAttributes(attrs,
-                R.styleable.FloatingActionMenu, defStyleAttr, 0);
-        mButtonMargin = getResources().getDimensionPixelSize(R.dimen.fab_actions_spacing);
+    private void initialize(Context context, AttributeSet attrs, MenuSpec spec) {
+        mLabelsMargin = spec.labelsMargin;
+        mButtonMargin = spec.buttonMargin;
 
-        mExpandDirection = attr.getInt(R.styleable.FloatingActionMenu_layout_expand,
-                UP);
-        mLabelsPosition = attr.getInt(R.styleable.FloatingActionMenu_layout_labels,
-                LABELS_LEFT);
-        mContentPadding = attr.getDimensionPixelSize(R.styleable.FloatingActionMenu_content_padding,
-                (int) getResources().getDimension(R.dimen.fab_margin));
+        mExpandDirection = spec.expandDirection;
+        mLabelsPosition = spec.labelsPosition;
+        mContentPadding = spec.contentPadding;
 
-        mLabelsStyle = attr.getResourceId(R.styleable.FloatingActionMenu_labelStyle, 0);
-        mLabelsType = attr.getInt(R.styleable.FloatingActionMenu_labelType, 0);
+        mLabelsStyle = spec.labelsStyle;
+        mLabelsType = spec.labelsType;
 
-        mBackgroundColor = attr.getColor(R.styleable.FloatingActionMenu_menuBackgroundColor,
-                Color.TRANSPARENT);
-        mFillParent = attr.getBoolean(R.styleable.FloatingActionMenu_menuBackgroundFillParent,
-                false);
+        mBackgroundColor = spec.backgroundColor;
+        mFillParent = spec.fillParent;
 
         //Animations
-        mMenuShowAnimation = attr.getResourceId(R.styleable.FloatingActionMenu_menuOpenAnimation,
-                R.anim.fab_in);
-        mMenuHideAnimation = attr.getResourceId(R.styleable.FloatingActionMenu_menuCloseAnimation,
-                R.anim.fab_out);
-        mAnimationDuration = attr.getInt(R.styleable.FloatingActionMenu_menuItemAnimationTime,
-                (int) ANIMATION_DURATION);
-        mAnimationDelayPerItem = attr.getInt(R.styleable.FloatingActionMenu_menuItemAnimationDelay,
-                100);
-
-        isClosedOnTouchOutside = attr.getBoolean(R.styleable.FloatingActionMenu_closeOnOutsideTouch,
-                true);
+        mMenuShowAnimation = spec.showAnimation;
+        mMenuHideAnimation = spec.hideAnimation;
+        mAnimationDuration = spec.animationDuration;
+        mAnimationDelayPerItem = spec.animationDelayPerItem;
+        mStateMachine.setMaxDuration(spec.maxAnimationTime);
+        if (spec.staggerInterpolator != 0) {
+            setStaggerInterpolator(
+                    AnimationUtils.loadInterpolator(context, spec.staggerInterpolator));
+        }
 
-        attr.recycle();
+        isClosedOnTouchOutside = spec.closeOnOutsideTouch;
+        mSuppressElevation = spec.suppressElevation;
+        mSnapshotEnabled = spec.snapshotFirstOpen;
+        mAdaptiveQuality = spec.adaptiveQuality;
+        mRadialLayout = new RadialLayoutStrategy(spec.radialStartAngle, spec.radialSweepAngle,
+                spec.radialRadius);
+        mGridLayout = new GridLayoutStrategy(spec.gridSpan, spec.gridOrientation);
+        mScrollable = spec.scrollable;
+        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
 
         mTouchDelegateGroup = new TouchDelegateGroup(this);
         setTouchDelegate(mTouchDelegateGroup);
+        mOutsideTouchHandler = new OutsideTouchHandler(mTouchSlop, mCloseRunnable);
+        mOutsideTouchHandler.setMode(spec.outsideTouchMode);
 
         initMenuButton(context, attrs);
-        initBackgroundDimAnimation();
-    }
-
-    private void initBackgroundDimAnimation() {
-        final int maxAlpha = Color.alpha(mBackgroundColor);
-        final int red = Color.red(mBackgroundColor);
-        final int green = Color.green(mBackgroundColor);
-        final int blue = Color.blue(mBackgroundColor);
-
-        mShowBackgroundAnimator = ValueAnimator.ofInt(0, maxAlpha);
-        mShowBackgroundAnimator.setDuration(mAnimationDuration);
-        mShowBackgroundAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                Integer alpha = (Integer) animation.getAnimatedValue();
-                setBackgroundColor(Color.argb(alpha, red, green, blue));
-            }
-        });
-
-        mHideBackgroundAnimator = ValueAnimator.ofInt(maxAlpha, 0);
-        mHideBackgroundAnimator.setDuration(mAnimationDuration);
-        mHideBackgroundAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                Integer alpha = (Integer) animation.getAnimatedValue();
-                setBackgroundColor(Color.argb(alpha, red, green, blue));
-            }
-        });
     }
 
     private void initMenuButton(Context context, AttributeSet attributeSet) {
         mMenuButton = new FloatingActionButton(context, attributeSet);
 
         mMenuButton.setId(R.id.fab_expand_menu_button);
-        mMenuButton.setImageDrawable(ContextCompat.getDrawable(context, R.drawable.ic_add_white_24dp));
+        mMenuButton.setScheduler(mScheduler);
+        mMenuButton.setIcon(R.drawable.ic_add_white_24dp, IconCache.NO_TINT);
         mMenuButton.setOnClickListener(new OnClickListener() {
             @Override
             public void onClick(View v) {
@@ -243,32 +476,10 @@ public class FloatingActionMenu extends ViewGroup {
 
         addView(mMenuButton, super.generateDefaultLayoutParams());
         mButtonsCount++;
-        initDefaultIconAnimation();
-    }
-
-    private void initDefaultIconAnimation() {
-
-        mExpandAnimation.play(ObjectAnimator.ofFloat(
-                mMenuButton,
-                "rotation",
-                COLLAPSED_PLUS_ROTATION,
-                EXPANDED_PLUS_ROTATION
-        ));
-
-        mCollapseAnimation.play(ObjectAnimator.ofFloat(
-                mMenuButton,
-                "rotation",
-                EXPANDED_PLUS_ROTATION,
-                COLLAPSED_PLUS_ROTATION
-        ));
-        mExpandAnimation.setInterpolator(new OvershootInterpolator(5f));
-        mCollapseAnimation.setInterpolator(new OvershootInterpolator(5f));
-        mExpandAnimation.setDuration(mAnimationDuration);
-        mCollapseAnimation.setDuration(mAnimationDuration);
     }
 
     private boolean isBackgroundEnabled() {
-        return mBackgroundColor != Color.TRANSPARENT;
+        return mBackgroundColor != Color.TRANSPARENT && mMenuGroup == null;
     }
 
     /**
@@ -289,24 +500,7 @@ public class FloatingActionMenu extends ViewGroup {
      * @param button The Floating Action Button to be added to the menu
      */
     public void addButton(FloatingActionButton button) {
-        addView(button, mButtonsCount - 1);
-        mButtonsCount++;
-
-        Animation showAnimation = AnimationUtils.loadAnimation(getContext(), mMenuShowAnimation);
-        if(mMenuHideAnimation == R.anim.fab_in){
-            showAnimation.setInterpolator(new FastOutSlowInInterpolator());
-        }
-
-        Animation hideAnimation = AnimationUtils.loadAnimation(getContext(), mMenuHideAnimation);
-        if(mMenuHideAnimation == R.anim.fab_out){
-            hideAnimation.setInterpolator(new FastOutSlowInInterpolator());
-        }
-
-        button.setShowAnimation(showAnimation, mAnimationDuration);
-        button.setHideAnimation(hideAnimation, mAnimationDuration);
-        if (mLabelsStyle != 0 || mLabelsType != 0) {
-            createLabels();
-        }
+        addButton(button, mButtonsCount - 1);
     }
 
     /**
@@ -315,103 +509,735 @@ public class FloatingActionMenu extends ViewGroup {
      * @param button The Floating Action Button to be added to the menu
      */
     public void addButton(FloatingActionButton button, int index) {
+        if (isBatching()) {
+            LayoutParams params = button.getLayoutParams();
+            addViewInLayout(button, index, params != null ? params : generateDefaultLayoutParams(),
+                    true);
+            mButtonsCount++;
+            prepareButton(button);
+            mPendingBatchFlags |= BATCH_LAYOUT | BATCH_CREATE_LABELS;
+            return;
+        }
+
         addView(button, index);
         mButtonsCount++;
 
+        prepareButton(button);
+        if (mLabelsStyle != 0 || mLabelsType != 0) {
+            createLabels();
+        }
+    }
+
+    private void prepareButton(FloatingActionButton button) {
+        button.setScheduler(mScheduler);
+        //An animation that a batch changes is loaded for every button when the batch is committed
+        if ((mPendingBatchFlags & BATCH_SHOW_ANIMATION) == 0) {
+            button.setShowAnimation(loadShowAnimation(), mAnimationDuration);
+        }
+        if ((mPendingBatchFlags & BATCH_HIDE_ANIMATION) == 0) {
+            button.setHideAnimation(loadHideAnimation(), mAnimationDuration);
+        }
+    }
+
+    private Animation loadShowAnimation() {
         Animation showAnimation = AnimationUtils.loadAnimation(getContext(), mMenuShowAnimation);
-        if(mMenuHideAnimation == R.anim.fab_in){
+        if(mMenuShowAnimation == R.anim.fab_in){
             showAnimation.setInterpolator(new FastOutSlowInInterpolator());
         }
+        return showAnimation;
+    }
 
+    private Animation loadHideAnimation() {
         Animation hideAnimation = AnimationUtils.loadAnimation(getContext(), mMenuHideAnimation);
         if(mMenuHideAnimation == R.anim.fab_out){
             hideAnimation.setInterpolator(new FastOutSlowInInterpolator());
         }
-
-        button.setShowAnimation(showAnimation, mAnimationDuration);
-        button.setHideAnimation(hideAnimation, mAnimationDuration);
-        if (mLabelsStyle != 0 || mLabelsType != 0) {
-            createLabels();
-        }
+        return hideAnimation;
     }
 
-
     /**
      * Removes the Floating Action Button from the Floating Action Menu
      * @param button the Floating Action Button to remove from the Menu
      */
     public void removeButton(FloatingActionButton button) {
-        removeView(button.getLabelView());
+        removeButton(button, false);
+    }
+
+    /**
+     * Removes the Floating Action Button from the Floating Action Menu
+     * @param button the Floating Action Button to remove from the Menu
+     * @param recycle true to return the button to the {@link MenuViewPool} of the menu, the button
+     *                must not be used by the caller afterwards
+     */
+    public void removeButton(FloatingActionButton button, boolean recycle) {
+        if (isBatching()) {
+            removeButtonInLayout(button, recycle);
+            mPendingBatchFlags |= BATCH_LAYOUT;
+            return;
+        }
+
+        button.restoreElevation();
+        LabelView label = button.getLabelView();
+        removeView(label);
         removeView(button);
         button.setLabelView(null);
         mButtonsCount--;
+
+        if (label != null) {
+            recycleLabel(label);
+        }
+        MenuViewPool pool = getRecyclePool();
+        if (recycle && pool != null) {
+            pool.releaseButton(button);
+        }
     }
 
-    @Override
-    public boolean onTouchEvent(@NonNull MotionEvent event) {
-        if (isClosedOnTouchOutside) {
-            return mTouchDelegateGroup.onTouchEvent(event) || mGestureDetector.onTouchEvent(event);
+    /**
+     * Starts a batch of changes to the menu. Until the matching {@link #commitBatch()} is called,
+     * adding and removing buttons and changing the labels, animations, direction or margins only
+     * queues their effects. Batches can be nested, the changes are applied when the outermost
+     * batch is committed.
+     */
+    public void beginBatch() {
+        mBatchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes that was started with {@link #beginBatch()}. When the outermost
+     * batch is committed, the animations are reloaded, the labels are created and a layout is
+     * requested at most once.
+     *
+     * @throws IllegalStateException if there is no batch to commit
+     */
+    public void commitBatch() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("commitBatch() called without beginBatch()");
+        }
+        if (--mBatchDepth > 0) {
+            return;
+        }
+
+        int flags = mPendingBatchFlags;
+        mPendingBatchFlags = 0;
+
+        if ((flags & BATCH_SHOW_ANIMATION) != 0) {
+            reloadShowAnimations();
+        }
+        if ((flags & BATCH_HIDE_ANIMATION) != 0) {
+            reloadHideAnimations();
+        }
+        if ((flags & BATCH_REBUILD_LABELS) != 0) {
+            removeLabels();
+        }
+        if ((flags & (BATCH_REBUILD_LABELS | BATCH_CREATE_LABELS)) != 0
+                && (mLabelsStyle != 0 || mLabelsType != 0)) {
+            createLabels();
+        }
+        if ((flags & BATCH_LAYOUT) != 0) {
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns if a batch of changes was started with {@link #beginBatch()} and not yet committed
+     */
+    public boolean isBatching() {
+        return mBatchDepth > 0;
+    }
+
+    /**
+     * Requests a layout, or queues it if a batch of changes is in progress
+     */
+    private void requestMenuLayout() {
+        if (mInMeasure) {
+            return;
+        }
+        if (isBatching()) {
+            mPendingBatchFlags |= BATCH_LAYOUT;
         } else {
-            return super.onTouchEvent(event);
+            requestLayout();
+            invalidate();
         }
     }
 
-    @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        measureChildren(widthMeasureSpec, heightMeasureSpec);
+    /**
+     * Sets the listener that is called when a Floating Action Button created from the
+     * {@link MenuAdapter} is clicked
+     */
+    public void setOnMenuItemClickListener(OnMenuItemClickListener listener) {
+        mItemClickListener = listener;
+    }
 
-        int width = 0;
-        int height = 0;
+    /**
+     * Sets the adapter that supplies the items of the menu. The buttons created for the items are
+     * placed before any buttons added with {@link #addButton(FloatingActionButton)}.
+     *
+     * @param adapter the adapter, or null to remove the buttons of the current adapter
+     */
+    public void setAdapter(MenuAdapter adapter) {
+        //The adapter is only observed while the menu is attached, so it does not keep a detached
+        //menu alive
+        if (mAdapter != null && mAttachedToWindow) {
+            mAdapter.unregisterDataSetObserver(mAdapterObserver);
+        }
+        mAdapter = adapter;
+        if (mAdapter != null && mAttachedToWindow) {
+            mAdapter.registerDataSetObserver(mAdapterObserver);
+        }
+        applyAdapterChanges();
+    }
 
-        mMaxButtonWidth = 0;
-        mMaxButtonHeight = 0;
-        int maxLabelWidth = 0;
+    /**
+     * Gets the adapter that supplies the items of the menu
+     */
+    public MenuAdapter getAdapter() {
+        return mAdapter;
+    }
 
-        for (int i = 0; i < mButtonsCount; i++) {
-            View child = getChildAt(i);
+    /**
+     * Diffs the buttons of the previous adapter data against the current adapter data by item id.
+     * Buttons are only created for new items and only removed for items that are gone. Items that
+     * kept their relative order stay attached, the rest are moved, and everything is done without
+     * requesting a layout until the end.
+     */
+    private void applyAdapterChanges() {
+        int itemCount = mAdapter != null ? mAdapter.getItemCount() : 0;
+        int start = 0;
+        int end = itemCount;
+        if (isScrollMode()) {
+            mFirstVisiblePosition = clampFirstVisiblePosition(mFirstVisiblePosition, itemCount);
+            start = mFirstVisiblePosition;
+            end = Math.min(itemCount, start + mWindowSize);
+        }
 
-            if (child.getVisibility() != GONE) {
-                switch (mExpandDirection) {
-                    case UP:
-                    case DOWN:
-                        mMaxButtonWidth = Math.max(mMaxButtonWidth, child.getMeasuredWidth());
-                        height += child.getMeasuredHeight();
-                        break;
-                    case LEFT:
-                    case RIGHT:
-                        width += child.getMeasuredWidth();
-                        mMaxButtonHeight = Math.max(mMaxButtonHeight, child.getMeasuredHeight());
-                        break;
-                }
+        int count = end - start;
+        LongSparseArray<FloatingActionButton> oldButtons = mAdapterButtons;
+        LongSparseArray<FloatingActionButton> newButtons = new LongSparseArray<>(count);
+        FloatingActionButton[] ordered = new FloatingActionButton[count];
+        int[] oldIndex = new int[count];
+
+        for (int position = 0; position < count; position++) {
+            long id = mAdapter.getItemId(start + position);
+            FloatingActionButton button = oldButtons.get(id);
+            if (button != null) {
+                oldButtons.remove(id);
+                oldIndex[position] = indexOfChild(button);
+            } else {
+                button = createAdapterButton(id, mAdapter.getButtonSize(start + position));
+                oldIndex[position] = -1;
+            }
+            ordered[position] = button;
+            newButtons.put(id, button);
+        }
+
+        //Removals
+        boolean changed = oldButtons.size() > 0;
+        for (int i = 0; i < oldButtons.size(); i++) {
+            removeButtonInLayout(oldButtons.valueAt(i), true);
+        }
+        mAdapterButtons = newButtons;
+
+        //Kept items that are part of the longest increasing run of old indices stay attached
+        boolean[] stays = longestIncreasingRun(oldIndex);
+        for (int position = 0; position < count; position++) {
+            if (oldIndex[position] >= 0 && !stays[position]) {
+                detachViewFromParent(ordered[position]);
+                changed = true;
+            }
+        }
+
+        //Inserts and moves go right after the adapter button before them, so buttons that were
+        //added by hand between the adapter buttons keep their place
+        int insertIndex = 0;
+        for (int position = 0; position < count; position++) {
+            if (stays[position]) {
+                insertIndex = indexOfChild(ordered[position]);
+                break;
+            }
+        }
+        for (int position = 0; position < count; position++) {
+            FloatingActionButton button = ordered[position];
+            if (stays[position]) {
+                insertIndex = indexOfChild(button) + 1;
+            } else if (oldIndex[position] < 0) {
+                addViewInLayout(button, insertIndex++, generateDefaultLayoutParams(), true);
+                mButtonsCount++;
+                changed = true;
+            } else {
+                attachViewToParent(button, insertIndex++, button.getLayoutParams());
+            }
+            mAdapter.onBindButton(button, start + position);
+            //An item without a label does not keep an empty label in the layout
+            if (TextUtils.isEmpty(button.getLabelText()) && removeLabelInLayout(button)) {
+                changed = true;
+            }
+        }
+
+        if (count > 0 && (mLabelsStyle != 0 || mLabelsType != 0)) {
+            if (isBatching()) {
+                mPendingBatchFlags |= BATCH_CREATE_LABELS;
+            } else {
+                createLabels();
+            }
+        }
+
+        if (changed) {
+            requestMenuLayout();
+        }
+    }
+
+    private FloatingActionButton createAdapterButton(long id, int size) {
+        FloatingActionButton button = obtainButton(size);
+        button.setTag(R.id.fab_item_id, id);
+        button.setOnClickListener(mAdapterButtonClickListener);
+        prepareButton(button);
+        if (!isMenuOpened()) {
+            button.setVisibility(INVISIBLE);
+        }
+        return button;
+    }
+
+    private void removeButtonInLayout(FloatingActionButton button, boolean recycle) {
+        button.restoreElevation();
+        removeLabelInLayout(button);
+        removeViewInLayout(button);
+        mButtonsCount--;
+
+        MenuViewPool pool = getRecyclePool();
+        if (recycle && pool != null) {
+            pool.releaseButton(button);
+        }
+    }
+
+    /**
+     * Removes the label of the button without requesting a layout
+     *
+     * @return true if the button had a label
+     */
+    private boolean removeLabelInLayout(FloatingActionButton button) {
+        LabelView label = button.getLabelView();
+        if (label == null) {
+            return false;
+        }
+        removeViewInLayout(label);
+        recycleLabel(label);
+        button.setLabelView(null);
+        return true;
+    }
+
+    private void recycleLabel(LabelView label) {
+        MenuViewPool pool = getRecyclePool();
+        if (pool != null) {
+            pool.releaseLabel(label);
+        }
+    }
+
+    /**
+     * Gets the pool that views are taken from and returned to. A scrollable menu without a pool
+     * keeps a private one, so the buttons that scroll out of view are reused for the items that
+     * scroll in.
+     */
+    private MenuViewPool getRecyclePool() {
+        if (mViewPool != null) {
+            return mViewPool;
+        }
+        if (isScrollMode()) {
+            if (mScrollPool == null) {
+                mScrollPool = new MenuViewPool();
+            }
+            return mScrollPool;
+        }
+        return null;
+    }
 
-                if (!expandsHorizontally()) {
-                    LabelView label = (LabelView) child.getTag(R.id.fab_label);
-                    if (label != null) {
-                        maxLabelWidth = Math.max(maxLabelWidth, label.getMeasuredWidth());
-                    }
+    /**
+     * Sets the pool that the buttons and labels created by the menu are taken from and returned to.
+     * The same pool can be shared between menus.
+     *
+     * @param pool the pool, or null to always create new views
+     */
+    public void setViewPool(MenuViewPool pool) {
+        mViewPool = pool;
+    }
+
+    /**
+     * Gets the pool that the buttons and labels created by the menu are taken from
+     */
+    public MenuViewPool getViewPool() {
+        return mViewPool;
+    }
+
+    /**
+     * Gets a Floating Action Button of the size from the {@link MenuViewPool}, or creates one if
+     * there is no pool or no pooled button. The button is not added to the menu.
+     *
+     * @param size {@link FloatingActionButton#SIZE_NORMAL} or {@link FloatingActionButton#SIZE_MINI}
+     */
+    public FloatingActionButton obtainButton(int size) {
+        MenuViewPool pool = getRecyclePool();
+        if (pool != null) {
+            return pool.acquireButton(getContext(), size);
+        }
+        return size == FloatingActionButton.SIZE_NORMAL
+                ? new FloatingActionButton(getContext())
+                : (FloatingActionButton) LayoutInflater.from(getContext())
+                        .inflate(R.layout.fab_pool_button_mini, this, false);
+    }
+
+    /**
+     * Marks the entries that form the longest strictly increasing run of the non negative values.
+     * Those entries are already in the right order relative to each other and do not need to move.
+     */
+    private static boolean[] longestIncreasingRun(int[] values) {
+        int length = values.length;
+        boolean[] result = new boolean[length];
+        int[] tails = new int[length];
+        int[] previous = new int[length];
+        int size = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (values[i] < 0) continue;
+
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
                 }
             }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == size) {
+                size++;
+            }
+        }
+
+        for (int i = size > 0 ? tails[size - 1] : -1; i >= 0; i = previous[i]) {
+            result[i] = true;
         }
+        return result;
+    }
 
-        if (!expandsHorizontally()) {
-            width = mMaxButtonWidth + (maxLabelWidth > 0 ? maxLabelWidth + mLabelsMargin : 0);
+    /**
+     * Sets if the menu only attaches the items of the {@link MenuAdapter} that fit on the screen.
+     * When there are more items than fit, the open menu can be scrolled along the direction it
+     * expands to, and the buttons that scroll out of view are reused for the items that scroll in.
+     */
+    public void setScrollable(boolean scrollable) {
+        if (mScrollable == scrollable) {
+            return;
+        }
+        mScrollable = scrollable;
+        mScrollPool = null;
+        mWindowSize = 1;
+        mScrollOffset = 0;
+        mFirstVisiblePosition = 0;
+        if (mAdapter != null) {
+            applyAdapterChanges();
+        }
+        requestMenuLayout();
+    }
+
+    /**
+     * Returns if the menu only attaches the items of the {@link MenuAdapter} that fit on the screen
+     */
+    public boolean isScrollable() {
+        return mScrollable;
+    }
+
+    private boolean isScrollMode() {
+        //Scrolling steps through the items one line at a time, so it needs the linear layout
+        return mScrollable && mAdapter != null && getLayoutStrategy() == LINEAR_LAYOUT;
+    }
+
+    /**
+     * Works out how many adapter items fit in the space the parent offers along the expand
+     * direction and attaches exactly those.
+     *
+     * @return true if items were attached or detached and the children need to be measured again
+     */
+    private boolean updateScrollWindow(int widthMeasureSpec, int heightMeasureSpec) {
+        int itemCount = mAdapter.getItemCount();
+        if (mAdapterButtons.size() == 0) {
+            mScrollRange = 0;
+            return false;
+        }
+
+        boolean horizontal = expandsHorizontally();
+        int spec = horizontal ? widthMeasureSpec : heightMeasureSpec;
+        //The items are expected to be the same size, the stride is taken from the first one the
+        //window holds
+        View item = mFirstVisiblePosition < itemCount
+                ? mAdapterButtons.get(mAdapter.getItemId(mFirstVisiblePosition))
+                : null;
+        if (item == null) {
+            item = mAdapterButtons.valueAt(0);
+        }
+        int itemExtent = horizontal ? item.getMeasuredWidth() : item.getMeasuredHeight();
+        int menuExtent = horizontal
+                ? mMenuButton.getMeasuredWidth()
+                : mMenuButton.getMeasuredHeight();
+        mItemStride = itemExtent + mButtonMargin;
+
+        int slots = itemCount;
+        if (MeasureSpec.getMode(spec) != MeasureSpec.UNSPECIFIED && mItemStride > 0) {
+            int space = MeasureSpec.getSize(spec) - menuExtent - mContentPadding;
+            slots = Math.max(1, Math.min(itemCount, space / mItemStride));
+        }
+
+        mScrollRange = Math.max(0, (itemCount - slots) * mItemStride);
+        mScrollOffset = Math.min(mScrollOffset, mScrollRange);
+
+        int windowSize = mScrollRange > 0 ? slots + 1 : slots;
+        boolean changed = windowSize != mWindowSize
+                || mAdapterButtons.size() != Math.min(itemCount, windowSize);
+        mWindowSize = windowSize;
+        int firstVisible = getScrolledFirstPosition(itemCount);
+        if (changed || firstVisible != mFirstVisiblePosition) {
+            mFirstVisiblePosition = firstVisible;
+            applyAdapterChanges();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the position of the first attached item for the current scroll offset
+     */
+    private int getScrolledFirstPosition(int itemCount) {
+        int position = mItemStride > 0 ? mScrollOffset / mItemStride : 0;
+        return clampFirstVisiblePosition(position, itemCount);
+    }
+
+    /**
+     * Keeps the window of attached items inside the adapter. At the end of the scroll range the
+     * window holds one more item than fits, so it starts one item earlier and the shift of the
+     * layout makes up for it.
+     */
+    private int clampFirstVisiblePosition(int position, int itemCount) {
+        return Math.max(0, Math.min(position, itemCount - mWindowSize));
+    }
+
+    /**
+     * Scrolls the items of an open scrollable menu. Moves the attached items as long as the same
+     * items stay visible, and only rebinds the window of items when an item scrolls in or out.
+     *
+     * @param delta the distance in pixels, positive values move towards the last item
+     */
+    private void scrollItemsBy(int delta) {
+        int offset = Math.max(0, Math.min(mScrollRange, mScrollOffset + delta));
+        int consumed = offset - mScrollOffset;
+        if (consumed == 0) {
+            return;
+        }
+        mScrollOffset = offset;
+
+        int firstVisible = getScrolledFirstPosition(mAdapter.getItemCount());
+        if (firstVisible != mFirstVisiblePosition) {
+            mFirstVisiblePosition = firstVisible;
+            applyAdapterChanges();
+            requestLayout();
+            return;
+        }
+
+        int move = mExpandDirection == UP || mExpandDirection == LEFT ? consumed : -consumed;
+        for (int i = 0; i < mAdapterButtons.size(); i++) {
+            FloatingActionButton button = mAdapterButtons.valueAt(i);
+            LabelView label = button.getLabelView();
+            if (expandsHorizontally()) {
+                button.offsetLeftAndRight(move);
+                if (label != null) {
+                    label.offsetLeftAndRight(move);
+                }
+            } else {
+                button.offsetTopAndBottom(move);
+                if (label != null) {
+                    label.offsetTopAndBottom(move);
+                }
+            }
+        }
+        //The touch areas move along until the next layout lays them out where the items are
+        if (expandsHorizontally()) {
+            mTouchDelegateGroup.offsetScrolled(move, 0);
+            mOutsideTouchHandler.offsetScrolled(move, 0);
         } else {
-            height = mMaxButtonHeight;
+            mTouchDelegateGroup.offsetScrolled(0, move);
+            mOutsideTouchHandler.offsetScrolled(0, move);
         }
+        //Only the clipped items moved, the menu button and the background stay as they are
+        invalidate(mItemsClip);
+    }
 
-        switch (mExpandDirection) {
-            case UP:
-            case DOWN:
-                height += mButtonMargin * (mButtonsCount - 1);
-                height = adjustForOvershoot(height);
-                width += mContentPadding;
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN && isClippingItems()
+                && !mItemsClip.contains((int) event.getX(), (int) event.getY())
+                && !isOnMenuButton(event)) {
+            //The parts of the items that are clipped away do not take touches
+            return true;
+        }
+        return canScrollItems() && trackScrollStart(event);
+    }
+
+    /**
+     * Returns if the scrolled items are clipped to the space between the main button and the edge
+     * of the menu
+     */
+    private boolean isClippingItems() {
+        return mScrollRange > 0 && isScrollMode();
+    }
+
+    private boolean isOnMenuButton(MotionEvent event) {
+        float x = event.getX();
+        float y = event.getY();
+        return x >= mMenuButton.getLeft() && x < mMenuButton.getRight()
+                && y >= mMenuButton.getTop() && y < mMenuButton.getBottom();
+    }
+
+    private boolean canScrollItems() {
+        return isScrollMode() && mScrollRange != 0 && isMenuOpened();
+    }
+
+    /**
+     * Follows a touch until it moves past the touch slop along the expand direction
+     *
+     * @return true once the touch has become a scroll
+     */
+    private boolean trackScrollStart(MotionEvent event) {
+        float position = expandsHorizontally() ? event.getX() : event.getY();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mLastTouchPosition = position;
+                mIsScrolling = false;
                 break;
-            case LEFT:
-            case RIGHT:
-                width += mButtonMargin * (mButtonsCount - 1);
-                width = adjustForOvershoot(width);
-                height += mContentPadding;
+            case MotionEvent.ACTION_MOVE:
+                if (Math.abs(position - mLastTouchPosition) > mTouchSlop) {
+                    mLastTouchPosition = position;
+                    mIsScrolling = true;
+                }
                 break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mIsScrolling = false;
+                break;
+        }
+        return mIsScrolling;
+    }
+
+    private boolean onScrollTouchEvent(MotionEvent event) {
+        float position = expandsHorizontally() ? event.getX() : event.getY();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                int delta = (int) (position - mLastTouchPosition);
+                if (delta != 0) {
+                    mLastTouchPosition += delta;
+                    scrollItemsBy(mExpandDirection == UP || mExpandDirection == LEFT
+                            ? delta : -delta);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mIsScrolling = false;
+                break;
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean drawChild(@NonNull Canvas canvas, View child, long drawingTime) {
+        if (mSnapshotActive) {
+            Bitmap snapshot = (Bitmap) child.getTag(R.id.fab_snapshot);
+            if (snapshot != null && snapshot.getWidth() == child.getWidth()
+                    && snapshot.getHeight() == child.getHeight()) {
+                return drawSnapshot(canvas, child, snapshot, drawingTime);
+            }
+        }
+        if (child != mMenuButton && isClippingItems()) {
+            canvas.save();
+            canvas.clipRect(mItemsClip);
+            boolean more = super.drawChild(canvas, child, drawingTime);
+            canvas.restore();
+            return more;
+        }
+        return super.drawChild(canvas, child, drawingTime);
+    }
+
+    @Override
+    public boolean onTouchEvent(@NonNull MotionEvent event) {
+        if (mIsScrolling) {
+            return onScrollTouchEvent(event);
+        }
+        boolean canScroll = canScrollItems();
+        if (canScroll && trackScrollStart(event)) {
+            //Drags that start on a label, a margin or empty space scroll as well, whatever had the
+            //touch so far lets go of it
+            MotionEvent cancel = MotionEvent.obtain(event);
+            cancel.setAction(MotionEvent.ACTION_CANCEL);
+            handleTouch(cancel);
+            cancel.recycle();
+            return true;
+        }
+        //A scrollable menu keeps the touch in case it turns into a scroll
+        return handleTouch(event) || canScroll;
+    }
+
+    private boolean handleTouch(MotionEvent event) {
+        if (isClosedOnTouchOutside) {
+            //Touches that land on an item go to its touch delegate
+            return mOutsideTouchHandler.onTouchEvent(event)
+                    || mTouchDelegateGroup.onTouchEvent(event);
+        } else {
+            return super.onTouchEvent(event);
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (mScrimAlpha > 0) {
+            canvas.drawColor(Color.argb(mScrimAlpha, Color.red(mBackgroundColor),
+                    Color.green(mBackgroundColor), Color.blue(mBackgroundColor)));
+        }
+        mAnimatingBounds.setEmpty();
+        super.dispatchDraw(canvas);
+        //Animating snapshots only redraw the union of where they move, not the whole menu
+        if (!mAnimatingBounds.isEmpty()) {
+            invalidate(mAnimatingBounds);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        measureChildren(widthMeasureSpec, heightMeasureSpec);
+
+        if (isScrollMode()) {
+            mInMeasure = true;
+            if (updateScrollWindow(widthMeasureSpec, heightMeasureSpec)) {
+                measureChildren(widthMeasureSpec, heightMeasureSpec);
+            }
+            mInMeasure = false;
+        } else {
+            mScrollRange = 0;
+        }
+
+        collectLayoutItems();
+        updateLayoutParams(mGeometry.getParams());
+        mGeometry.setStrategy(getLayoutStrategy());
+        mGeometry.measure();
+
+        int width = mGeometry.getMeasuredWidth();
+        int height = mGeometry.getMeasuredHeight();
+
+        if (mScrollRange > 0) {
+            //The window holds one more item than fits, the part that does not fit is clipped
+            if (expandsHorizontally()) {
+                width = Math.min(width, MeasureSpec.getSize(widthMeasureSpec));
+            } else {
+                height = Math.min(height, MeasureSpec.getSize(heightMeasureSpec));
+            }
         }
 
         if (getLayoutParams().width == LayoutParams.MATCH_PARENT ||
@@ -424,146 +1250,445 @@ public class FloatingActionMenu extends ViewGroup {
             height = getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
         }
 
-        setMeasuredDimension(width, height);
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int count = collectLayoutItems();
+        updateLayoutParams(mGeometry.getParams());
+        mGeometry.setStrategy(getLayoutStrategy());
+        if (mPrecomputedGeometry == null
+                || !mGeometry.copyLayoutFrom(mPrecomputedGeometry, r - l, b - t)) {
+            mGeometry.layout(r - l, b - t);
+        }
+
+        //Touch areas and item bounds are added again for every child below, the ones of adapter
+        //items that scroll move with them until the next layout
+        mTouchDelegateGroup.clearTouchDelegates();
+        mOutsideTouchHandler.clearBounds();
+        boolean clipping = isClippingItems();
+
+        for (int i = 0; i < count; i++) {
+            View child = mLayoutViews[i];
+            int childLeft = mGeometry.getLeft(i);
+            int childTop = mGeometry.getTop(i);
+            child.layout(childLeft, childTop, childLeft + child.getMeasuredWidth(),
+                    childTop + child.getMeasuredHeight());
+            boolean scrolled = clipping && child.getTag(R.id.fab_item_id) != null;
+            addItemBounds(childLeft, childTop, childLeft + child.getMeasuredWidth(),
+                    childTop + child.getMeasuredHeight(), scrolled);
+
+            if (child == mMenuButton) continue;
+
+            child.setTag(R.id.fab_stagger_step, mGeometry.getStaggerStep(i));
+
+            if(!isMenuOpened()) {
+                ((FloatingActionButton) child).hide(false);
+            }
+
+            LabelView label = (LabelView) child.getTag(R.id.fab_label);
+            if (label != null) {
+                int labelLeft = mGeometry.getLabelLeft(i);
+                int labelTop = mGeometry.getLabelTop(i);
+                if (labelLeft == MenuLayoutStrategy.NO_POSITION) {
+                    label.layout(0, 0, 0, 0);
+                } else {
+                    label.layout(labelLeft, labelTop, labelLeft + label.getMeasuredWidth(),
+                            labelTop + label.getMeasuredHeight());
+                    addItemBounds(labelLeft, labelTop, labelLeft + label.getMeasuredWidth(),
+                            labelTop + label.getMeasuredHeight(), scrolled);
+                }
+
+                if(!isMenuOpened()) {
+                    label.hide(false);
+                }
+            }
+
+            int touchLeft = mGeometry.getTouchLeft(i);
+            int touchTop = mGeometry.getTouchTop(i);
+            int touchRight = mGeometry.getTouchRight(i);
+            int touchBottom = mGeometry.getTouchBottom(i);
+            if (touchLeft < touchRight && touchTop < touchBottom) {
+                Rect touchArea = new Rect(touchLeft, touchTop, touchRight, touchBottom);
+                TouchDelegate delegate = new TouchDelegate(touchArea, child);
+                if (scrolled) {
+                    mTouchDelegateGroup.addScrolledTouchDelegate(delegate);
+                } else {
+                    mTouchDelegateGroup.addTouchDelegate(delegate);
+                }
+                addItemBounds(touchLeft, touchTop, touchRight, touchBottom, scrolled);
+            }
+        }
+
+        if (clipping) {
+            updateItemsClip(r - l, b - t);
+        } else {
+            mItemsClip.setEmpty();
+        }
+        mTouchDelegateGroup.setScrollClip(mItemsClip);
+        mOutsideTouchHandler.setScrollClip(mItemsClip.left, mItemsClip.top, mItemsClip.right,
+                mItemsClip.bottom);
+        scheduleSnapshot();
+    }
+
+    private void addItemBounds(int left, int top, int right, int bottom, boolean scrolled) {
+        if (scrolled) {
+            mOutsideTouchHandler.addScrolledBounds(left, top, right, bottom);
+        } else {
+            mOutsideTouchHandler.addBounds(left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Sets if the items and labels are drawn into bitmaps once the menu is laid out and idle, and
+     * the first open animates those bitmaps instead of the items. The first frame of the open then
+     * does not wait for every item and label to be drawn, the items are drawn live again once the
+     * menu settles. The bitmaps are drawn in software, so on Lollipop and above they do not have
+     * the elevation shadows until the live items take over.
+     */
+    public void setSnapshotEnabled(boolean enabled) {
+        mSnapshotEnabled = enabled;
+        if (enabled) {
+            scheduleSnapshot();
+        } else {
+            releaseSnapshot();
+        }
+    }
+
+    /**
+     * Gets if the first open animates bitmaps of the items
+     */
+    public boolean isSnapshotEnabled() {
+        return mSnapshotEnabled;
+    }
+
+    /**
+     * Drops the snapshot because an item or label changed how it looks. A snapshot that is not in
+     * use is drawn again when the menu is idle.
+     */
+    void invalidateSnapshot() {
+        if (!mSnapshotReady) {
+            return;
+        }
+        boolean active = mSnapshotActive;
+        releaseSnapshot();
+        if (active) {
+            invalidate();
+        } else {
+            scheduleSnapshot();
+        }
+    }
+
+    private void scheduleSnapshot() {
+        mScheduler.cancel(mSnapshotRunnable);
+        if (mSnapshotEnabled && !mSnapshotReady && !mSnapshotUsed) {
+            mScheduler.postDelayed(mSnapshotRunnable, 0);
+        }
+    }
+
+    /**
+     * Draws every item and label that is closed into its own bitmap
+     */
+    private void buildSnapshot() {
+        if (!mSnapshotEnabled || mSnapshotReady || mSnapshotUsed || isScrollMode()
+                || getWindowToken() == null || isMenuOpened() || mStateMachine.isAnimating()
+                || mStateMachine.getTargetState() != MenuStateMachine.STATE_CLOSED) {
+            return;
+        }
+        for (int i = 0; i < mButtonsCount; i++) {
+            View child = getChildAt(i);
+            if (child == mMenuButton || child.getVisibility() == GONE) continue;
+            snapshotView(child);
+            LabelView label = ((FloatingActionButton) child).getLabelView();
+            if (label != null) {
+                snapshotView(label);
+            }
+        }
+        mSnapshotReady = true;
+    }
+
+    private static void snapshotView(View view) {
+        if (view.getWidth() <= 0 || view.getHeight() <= 0) {
+            view.setTag(R.id.fab_snapshot, null);
+            return;
+        }
+        Bitmap snapshot = Bitmap.createBitmap(view.getWidth(), view.getHeight(),
+                Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(snapshot));
+        view.setTag(R.id.fab_snapshot, snapshot);
+    }
+
+    /**
+     * Switches to the live items once the transition that used the snapshot settles
+     */
+    private void finishSnapshot() {
+        if (mSnapshotActive) {
+            mSnapshotUsed = true;
+            releaseSnapshot();
+            invalidate();
+        }
+    }
+
+    private void releaseSnapshot() {
+        mScheduler.cancel(mSnapshotRunnable);
+        mSnapshotReady = false;
+        mSnapshotActive = false;
+        //The bitmaps are not recycled, a display list that is still being rendered may use them
+        for (int i = 0; i < getChildCount(); i++) {
+            getChildAt(i).setTag(R.id.fab_snapshot, null);
+            getChildAt(i).setTag(R.id.fab_snapshot_bounds, null);
+        }
+    }
+
+    /**
+     * Draws the snapshot of the child the way the child would draw itself, with its animation and
+     * its own transformation and alpha applied
+     */
+    private boolean drawSnapshot(Canvas canvas, View child, Bitmap snapshot, long drawingTime) {
+        Animation animation = child.getAnimation();
+        boolean animating = animation != null && !animation.hasEnded();
+        if (child.getVisibility() != VISIBLE && !animating) {
+            return false;
+        }
+
+        int save = canvas.save();
+        canvas.translate(child.getLeft(), child.getTop());
+        float alpha = child.getAlpha();
+        boolean more = false;
+        if (animating) {
+            if (!animation.isInitialized()) {
+                animation.initialize(child.getWidth(), child.getHeight(), getWidth(), getHeight());
+            }
+            mSnapshotTransformation.clear();
+            more = animation.getTransformation(drawingTime, mSnapshotTransformation);
+            canvas.concat(mSnapshotTransformation.getMatrix());
+            alpha *= mSnapshotTransformation.getAlpha();
+            if (more) {
+                addAnimatingBounds(child);
+            } else {
+                RectF previous = (RectF) child.getTag(R.id.fab_snapshot_bounds);
+                if (previous != null) {
+                    previous.setEmpty();
+                }
+            }
+        }
+        if (!child.getMatrix().isIdentity()) {
+            canvas.concat(child.getMatrix());
+        }
+        mSnapshotPaint.setAlpha(Math.round(alpha * 255));
+        canvas.drawBitmap(snapshot, 0, 0, mSnapshotPaint);
+        canvas.restoreToCount(save);
+        return more;
+    }
+
+    /**
+     * Adds the area the animating snapshot of the child needs redrawn on the next frame to the
+     * bounds that are invalidated after the children are drawn. That is the area between where the
+     * snapshot is now and where the child is laid out, and the area the snapshot moves into if it
+     * keeps its speed, which covers an overshoot past the layout position.
+     */
+    private void addAnimatingBounds(View child) {
+        mSnapshotMatrix.set(mSnapshotTransformation.getMatrix());
+        if (!child.getMatrix().isIdentity()) {
+            mSnapshotMatrix.preConcat(child.getMatrix());
+        }
+        mSnapshotBounds.set(0, 0, child.getWidth(), child.getHeight());
+        mSnapshotMatrix.mapRect(mSnapshotBounds);
+        mSnapshotBounds.offset(child.getLeft(), child.getTop());
+
+        RectF previous = (RectF) child.getTag(R.id.fab_snapshot_bounds);
+        if (previous == null) {
+            previous = new RectF();
+            child.setTag(R.id.fab_snapshot_bounds, previous);
+        }
+        float dx = previous.isEmpty() ? 0 : mSnapshotBounds.left - previous.left;
+        float dy = previous.isEmpty() ? 0 : mSnapshotBounds.top - previous.top;
+        previous.set(mSnapshotBounds);
+
+        mSnapshotBounds.union(child.getLeft(), child.getTop(), child.getRight(),
+                child.getBottom());
+        mSnapshotBounds.union(previous.left + dx, previous.top + dy, previous.right + dx,
+                previous.bottom + dy);
+        mAnimatingBounds.union((int) Math.floor(mSnapshotBounds.left),
+                (int) Math.floor(mSnapshotBounds.top), (int) Math.ceil(mSnapshotBounds.right),
+                (int) Math.ceil(mSnapshotBounds.bottom));
+    }
+
+    /**
+     * Collects the main button and the buttons that are not gone into the geometry of the menu,
+     * the main button is always first.
+     *
+     * @return the number of collected items
+     */
+    private int collectLayoutItems() {
+        if (mLayoutViews.length < mButtonsCount) {
+            mLayoutViews = new View[mButtonsCount];
+        }
+        mGeometry.setItemCount(mButtonsCount);
+
+        int count = 0;
+        addLayoutItem(mMenuButton, count++);
+        for (int i = 0; i < mButtonsCount; i++) {
+            View child = getChildAt(i);
+            if (child == mMenuButton || child.getVisibility() == GONE) continue;
+            addLayoutItem(child, count++);
+        }
+        for (int i = count; i < mLayoutViews.length && mLayoutViews[i] != null; i++) {
+            mLayoutViews[i] = null;
+        }
+        mGeometry.setItemCount(count);
+        return count;
+    }
+
+    private void addLayoutItem(View child, int index) {
+        LabelView label = (LabelView) child.getTag(R.id.fab_label);
+        mLayoutViews[index] = child;
+        mGeometry.setItemSize(index, child.getMeasuredWidth(), child.getMeasuredHeight(),
+                label != null ? label.getMeasuredWidth() : 0,
+                label != null ? label.getMeasuredHeight() : 0);
     }
 
-    @Override
-    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    private void updateLayoutParams(MenuLayoutStrategy.Params params) {
+        params.direction = mExpandDirection;
+        params.labelsPosition = mLabelsPosition;
+        params.buttonMargin = mButtonMargin;
+        params.labelsMargin = mLabelsMargin;
+        params.contentPadding = mContentPadding;
+        params.paddingLeft = getPaddingLeft();
+        params.paddingTop = getPaddingTop();
+        params.paddingRight = getPaddingRight();
+        params.paddingBottom = getPaddingBottom();
+        params.scrollShift = mScrollRange > 0
+                ? mScrollOffset - mFirstVisiblePosition * mItemStride
+                : 0;
+    }
+
+    /**
+     * Clips the scrolled items so they do not draw over the main button
+     */
+    private void updateItemsClip(int width, int height) {
+        int halfMargin = mButtonMargin / 2;
         switch (mExpandDirection) {
             case UP:
-                //Fall through
+                mItemsClip.set(0, 0, width, mMenuButton.getTop() - halfMargin);
+                break;
             case DOWN:
-                boolean expandUp = mExpandDirection == UP;
-
-                if (changed) {
-                    mTouchDelegateGroup.clearTouchDelegates();
-                }
-
-                int addButtonTop = expandUp ? b - t - mMenuButton.getMeasuredHeight() - getPaddingBottom()
-                        : getPaddingTop();
-
-                // Ensure mMenuButton is centered on the line where the buttons should be
-                int buttonsHorizontalCenter = mLabelsPosition == LABELS_LEFT
-                        ? r - l - mMaxButtonWidth / 2 - getPaddingRight()
-                        : mMaxButtonWidth / 2 + getPaddingLeft();
-                int addButtonLeft = buttonsHorizontalCenter - mMenuButton.getMeasuredWidth() / 2;
-
-                int buttonPaddingHeight = expandUp ? (mContentPadding /2): (-mContentPadding /2);
-                int buttonPaddingWidth = mLabelsPosition == LABELS_LEFT
-                        ? (mContentPadding /2)
-                        :(-mContentPadding /2);
-
-                mMenuButton.layout(addButtonLeft - buttonPaddingWidth, addButtonTop - buttonPaddingHeight,
-                        addButtonLeft + mMenuButton.getMeasuredWidth() - buttonPaddingWidth,
-                        addButtonTop + mMenuButton.getMeasuredHeight() - buttonPaddingHeight);
-
-                int labelsOffset = mMaxButtonWidth / 2 + mLabelsMargin;
-                int labelsXNearButton = mLabelsPosition == LABELS_LEFT
-                        ? buttonsHorizontalCenter - labelsOffset
-                        : buttonsHorizontalCenter + labelsOffset;
-
-                int nextY = expandUp ?
-                        addButtonTop - mButtonMargin :
-                        addButtonTop + mMenuButton.getMeasuredHeight() + mButtonMargin;
-
-                for (int i = 0; i < mButtonsCount; i++) {
-                    final View child = getChildAt(i);
-
-                    if (child == mMenuButton || child.getVisibility() == GONE) continue;
-
-                    int childX = buttonsHorizontalCenter - child.getMeasuredWidth() / 2;
-                    int childY = expandUp ? nextY - child.getMeasuredHeight() : nextY;
-                    child.layout(childX - buttonPaddingWidth, childY - buttonPaddingHeight,
-                            childX + child.getMeasuredWidth() - buttonPaddingWidth,
-                            childY + child.getMeasuredHeight() - buttonPaddingHeight);
-
-                    if(!isMenuOpened) {
-                        ((FloatingActionButton) child).hide(false);
-                    }
-
-                    LabelView label = (LabelView) child.getTag(R.id.fab_label);
-                    if (label != null) {
-                        int labelXAwayFromButton = mLabelsPosition == LABELS_LEFT
-                                ? labelsXNearButton - label.getMeasuredWidth()
-                                : labelsXNearButton + label.getMeasuredWidth();
-
-                        int labelLeft = mLabelsPosition == LABELS_LEFT
-                                ? labelXAwayFromButton
-                                : labelsXNearButton;
-
-                        int labelRight = mLabelsPosition == LABELS_LEFT
-                                ? labelsXNearButton
-                                : labelXAwayFromButton;
-
-                        int labelTop = childY +
-                                (child.getMeasuredHeight() - label.getMeasuredHeight()) / 2;
-
-                        label.layout(labelLeft, labelTop - buttonPaddingHeight,
-                                labelRight,
-                                labelTop + label.getMeasuredHeight() - buttonPaddingHeight);
-
-                        Rect touchArea = new Rect(
-                                Math.min(childX, labelLeft),
-                                childY - mButtonMargin / 2,
-                                Math.max(childX + child.getMeasuredWidth(), labelRight),
-                                childY + child.getMeasuredHeight() + mButtonMargin / 2);
-                        mTouchDelegateGroup.addTouchDelegate(new TouchDelegate(touchArea, child));
-
-                        if(!isMenuOpened) {
-                            label.hide(false);
-                        }
-                    }
-
-                    nextY = expandUp ?
-                            childY - mButtonMargin :
-                            childY + child.getMeasuredHeight() + mButtonMargin;
-                }
+                mItemsClip.set(0, mMenuButton.getBottom() + halfMargin, width, height);
                 break;
-
             case LEFT:
-                //Fall through
+                mItemsClip.set(0, 0, mMenuButton.getLeft() - halfMargin, height);
+                break;
             case RIGHT:
-                boolean expandLeft = mExpandDirection == LEFT;
-
-                addButtonLeft = expandLeft ? r - l - mMenuButton.getMeasuredWidth() - getPaddingLeft()
-                        : getPaddingRight();
-                // Ensure mMenuButton is centered on the line where the buttons should be
-                addButtonTop = b - t - mMaxButtonHeight +
-                        (mMaxButtonHeight - mMenuButton.getMeasuredHeight()) / 2;
+                mItemsClip.set(mMenuButton.getRight() + halfMargin, 0, width, height);
+                break;
+        }
+    }
 
-                buttonPaddingHeight = (mContentPadding /2);
-                buttonPaddingWidth = expandLeft ? (mContentPadding /2): (-mContentPadding /2);
+    /**
+     * Sets the strategy that places the items and labels of the menu. Setting null uses the
+     * built in strategy for the direction set with {@link #setMenuDirection(int)}.
+     */
+    public void setLayoutStrategy(MenuLayoutStrategy strategy) {
+        mLayoutStrategy = strategy;
+        mPrecomputedGeometry = null;
+        requestMenuLayout();
+    }
 
-                mMenuButton.layout(addButtonLeft - buttonPaddingWidth, addButtonTop - buttonPaddingHeight,
-                        addButtonLeft + mMenuButton.getMeasuredWidth() - buttonPaddingWidth,
-                        addButtonTop + mMenuButton.getMeasuredHeight() - buttonPaddingHeight);
+    /**
+     * Gets the strategy that places the items and labels of the menu
+     */
+    public MenuLayoutStrategy getLayoutStrategy() {
+        if (mLayoutStrategy != null) {
+            return mLayoutStrategy;
+        }
+        if (mExpandDirection == RADIAL) {
+            return mRadialLayout;
+        }
+        if (mExpandDirection == GRID) {
+            return mGridLayout;
+        }
+        return LINEAR_LAYOUT;
+    }
 
-                int nextX = expandLeft ?
-                        addButtonLeft - mButtonMargin :
-                        addButtonLeft + mMenuButton.getMeasuredWidth() + mButtonMargin;
+    /**
+     * Sets the arc the buttons are fanned along when the menu direction is {@link #RADIAL}.
+     * Angles are in degrees, 0 points right and 90 points up.
+     *
+     * @param startAngle the angle of the first button
+     * @param sweepAngle the angle between the first and the last button
+     */
+    public void setRadialArc(float startAngle, float sweepAngle) {
+        mRadialLayout.setArc(startAngle, sweepAngle);
+        mPrecomputedGeometry = null;
+        requestMenuLayout();
+    }
 
-                for (int i = 0; i < mButtonsCount; i++) {
-                    final View child = getChildAt(i);
+    /**
+     * Sets the distance between the center of the main button and the centers of the buttons when
+     * the menu direction is {@link #RADIAL}. A radius of 0 fits the radius to the buttons.
+     *
+     * @param radius the radius in pixels
+     */
+    public void setRadialRadius(int radius) {
+        mRadialLayout.setRadius(radius);
+        mPrecomputedGeometry = null;
+        requestMenuLayout();
+    }
 
-                    if (child == mMenuButton || child.getVisibility() == GONE) continue;
+    /**
+     * Sets the number of columns the buttons wrap into when the menu direction is {@link #GRID},
+     * or the number of rows when the grid fills {@link #GRID_COLUMNS}
+     */
+    public void setGridSpan(int span) {
+        mGridLayout.setSpan(span);
+        mPrecomputedGeometry = null;
+        requestMenuLayout();
+    }
 
-                    int childX = expandLeft ? nextX - child.getMeasuredWidth() : nextX;
-                    int childY = addButtonTop + (mMenuButton.getMeasuredHeight() - child.getMeasuredHeight()) / 2;
-                    child.layout(childX - buttonPaddingWidth, childY - buttonPaddingHeight,
-                            childX + child.getMeasuredWidth() - buttonPaddingWidth,
-                            childY + child.getMeasuredHeight() - buttonPaddingHeight);
+    /**
+     * Sets if the buttons of a {@link #GRID} menu fill rows above the menu button,
+     * {@link #GRID_ROWS}, or columns beside it on the side of the labels, {@link #GRID_COLUMNS}
+     */
+    public void setGridOrientation(@GridOrientation int orientation) {
+        mGridLayout.setOrientation(orientation);
+        mPrecomputedGeometry = null;
+        requestMenuLayout();
+    }
 
-                    if(!isMenuOpened) {
-                        ((FloatingActionButton) child).hide(false);
-                    }
+    /**
+     * Creates a geometry with a copy of the layout strategy and the settings of the menu. The
+     * geometry can then be filled with item sizes, measured and laid out on another thread and
+     * handed back with {@link #setPrecomputedGeometry(MenuGeometry)}. Must be called on the
+     * thread of the menu. A custom {@link MenuLayoutStrategy} is shared, not copied.
+     */
+    public MenuGeometry createGeometry() {
+        MenuLayoutStrategy strategy;
+        if (mLayoutStrategy != null) {
+            strategy = mLayoutStrategy;
+        } else if (mExpandDirection == RADIAL) {
+            strategy = new RadialLayoutStrategy(mRadialLayout.getStartAngle(),
+                    mRadialLayout.getSweepAngle(), mRadialLayout.getRadius());
+        } else if (mExpandDirection == GRID) {
+            strategy = new GridLayoutStrategy(mGridLayout.getSpan(),
+                    mGridLayout.getOrientation());
+        } else {
+            strategy = LINEAR_LAYOUT;
+        }
 
-                    nextX = expandLeft ?
-                            childX - mButtonMargin :
-                            childX + child.getMeasuredWidth() + mButtonMargin;
-                }
+        MenuGeometry geometry = new MenuGeometry(strategy);
+        updateLayoutParams(geometry.getParams());
+        return geometry;
+    }
 
-                break;
-        }
+    /**
+     * Sets a geometry that was laid out ahead of time. While the menu lays out with the same item
+     * sizes, settings and bounds, the positions are copied from it instead of being worked out
+     * again. Setting null always lays out the menu.
+     */
+    public void setPrecomputedGeometry(MenuGeometry geometry) {
+        mPrecomputedGeometry = geometry;
+        requestMenuLayout();
     }
 
     @Override
@@ -576,18 +1701,7 @@ public class FloatingActionMenu extends ViewGroup {
         for (int i = 0; i < mButtonsCount; i++) {
             final View child = getChildAt(i);
             if(child != mMenuButton) {
-                Animation showAnimation = AnimationUtils.loadAnimation(getContext(), mMenuShowAnimation);
-                if(mMenuShowAnimation == R.anim.fab_in){
-                    showAnimation.setInterpolator(new FastOutSlowInInterpolator());
-                }
-
-                Animation hideAnimation = AnimationUtils.loadAnimation(getContext(), mMenuHideAnimation);
-                if(mMenuHideAnimation == R.anim.fab_out){
-                    hideAnimation.setInterpolator(new FastOutSlowInInterpolator());
-                }
-
-                ((FloatingActionButton)child).setShowAnimation(showAnimation, mAnimationDuration);
-                ((FloatingActionButton)child).setHideAnimation(hideAnimation, mAnimationDuration);
+                prepareButton((FloatingActionButton) child);
                 ((FloatingActionButton)child).hide(false);
             }
         }
@@ -597,12 +1711,9 @@ public class FloatingActionMenu extends ViewGroup {
         }
     }
 
-    private int adjustForOvershoot(int dimension) {
-        return dimension * 12 / 10;
-    }
-
     private void createLabels() {
-        Context context = new ContextThemeWrapper(getContext(), mLabelsStyle);
+        Context context = null;
+        boolean added = false;
 
         for (int i = 0; i < mButtonsCount; i++) {
             FloatingActionButton button = (FloatingActionButton) getChildAt(i);
@@ -611,11 +1722,19 @@ public class FloatingActionMenu extends ViewGroup {
             if (button == mMenuButton || title == null ||
                     button.getTag(R.id.fab_label) != null) continue;
 
-            LabelView label = new LabelView(context);
-            if(mLabelsType == LABELS_CARD) {
-                label.setLabelType(LabelView.Type.CARD);
-            }else {
-                label.setLabelType(LabelView.Type.TEXT);
+            LabelView.Type type = mLabelsType == LABELS_CARD
+                    ? LabelView.Type.CARD
+                    : LabelView.Type.TEXT;
+            LabelView label;
+            MenuViewPool pool = getRecyclePool();
+            if (pool != null) {
+                label = pool.acquireLabel(getContext(), type, mLabelsStyle);
+            } else {
+                if (context == null) {
+                    context = new ContextThemeWrapper(getContext(), mLabelsStyle);
+                }
+                label = new LabelView(context);
+                label.setLabelType(type);
             }
 
             int style;
@@ -627,216 +1746,353 @@ public class FloatingActionMenu extends ViewGroup {
 
             label.setTextAppearance(getContext(), style);
 
-            Animation showAnimation = AnimationUtils.loadAnimation(getContext(), mMenuShowAnimation);
-            if(mMenuHideAnimation == R.anim.fab_in){
-                showAnimation.setInterpolator(new FastOutSlowInInterpolator());
-            }
-
-            Animation hideAnimation = AnimationUtils.loadAnimation(getContext(), mMenuHideAnimation);
-            if(mMenuHideAnimation == R.anim.fab_out){
-                hideAnimation.setInterpolator(new FastOutSlowInInterpolator());
-            }
-
-            label.setShowAnimation(showAnimation, mAnimationDuration);
-            label.setHideAnimation(hideAnimation, mAnimationDuration);
+            label.setShowAnimation(loadShowAnimation(), mAnimationDuration);
+            label.setHideAnimation(loadHideAnimation(), mAnimationDuration);
+            label.setScheduler(mScheduler);
 
             label.setText(button.getLabelText());
-            addView(label);
+            if (button.isHidden()) {
+                label.setVisibility(INVISIBLE);
+            }
+            addViewInLayout(label, -1, generateDefaultLayoutParams(), true);
+            added = true;
 
             button.setLabelView(label);
         }
+
+        if (added) {
+            requestMenuLayout();
+        }
     }
 
     /**
-     * Closes the Floating Action Menu
+     * Closes the Floating Action Menu. The transition starts on the next frame, requests that are
+     * made before then are combined so only the last one takes effect.
      */
     public void close() {
-        if (isMenuOpened && !isMenuAnimationRunning) {
-            isMenuAnimationRunning = true;
-            if (isBackgroundEnabled()) {
-                mHideBackgroundAnimator.start();
-            }
-
-            mTouchDelegateGroup.setEnabled(false);
-            mCollapseAnimation.start();
-            mExpandAnimation.cancel();
-
-            int delay = 0;
-            int counter = 0;
-            for (int i = getChildCount() - 1; i >= 0; i--) {
-                View child = getChildAt(i);
-                if (child instanceof FloatingActionButton
-                        && child != mMenuButton && child.getVisibility() != GONE) {
-                    counter++;
-
-                    final FloatingActionButton fab = (FloatingActionButton) child;
-                    mUiHandler.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (isMenuOpened()) {
-                                fab.hide(true);
-                                LabelView label = fab.getLabelView();
-                                if(label != null){
-                                    label.hide(true);
-                                }
-                            }
-                        }
-                    }, delay);
-                    delay += mAnimationDelayPerItem;
-                }
-            }
-
-            mUiHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    isMenuOpened = false;
-                    isMenuAnimationRunning = false;
-
-                    if (mMenuListener != null) {
-                        mMenuListener.onMenuCollapsed();
-                    }
-                }
-            }, (counter * mAnimationDelayPerItem) + mAnimationDuration);
-        }
+        applyTiming();
+        mStateMachine.close();
     }
 
     /**
      * Toggles if the Floating Action Menu is open or close
      */
     public void toggle() {
-        if (isMenuOpened) {
-            close();
-        } else {
-            open();
+        applyTiming();
+        mStateMachine.toggle();
+        if (mMenuGroup != null && isOpenTarget()) {
+            mMenuGroup.onOpenRequested(this);
         }
     }
 
     /**
-     * Opens the Floating Action Menu
+     * Opens the Floating Action Menu. The transition starts on the next frame, requests that are
+     * made before then are combined so only the last one takes effect.
      */
     public void open() {
-        if (!isMenuOpened && !isMenuAnimationRunning) {
-            isMenuAnimationRunning = true;
-            if (isBackgroundEnabled()) {
-                mShowBackgroundAnimator.start();
-            }
+        applyTiming();
+        mStateMachine.open();
+        if (mMenuGroup != null && isOpenTarget()) {
+            mMenuGroup.onOpenRequested(this);
+        }
+    }
 
-            mTouchDelegateGroup.setEnabled(true);
-            mCollapseAnimation.cancel();
-            mExpandAnimation.start();
-
-            int delay = 0;
-            int counter = 0;
-            for (int i = 0; i < getChildCount(); i++) {
-                View child = getChildAt(i);
-                if (child instanceof FloatingActionButton
-                        && child != mMenuButton && child.getVisibility() != GONE) {
-                    counter++;
-
-                    final FloatingActionButton fab = (FloatingActionButton) child;
-                    mUiHandler.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (!isMenuOpened()) {
-                                fab.show(true);
-                                LabelView label = fab.getLabelView();
-                                if(label != null){
-                                    label.show(true);
-                                }
-                            }
-                        }
-                    }, delay);
-                    delay += mAnimationDelayPerItem;
-                }
-            }
+    /**
+     * Gets if the menu is open or has been requested to open
+     */
+    boolean isOpenTarget() {
+        return mStateMachine.getTargetState() == MenuStateMachine.STATE_OPEN;
+    }
+
+    /**
+     * Sets the group that coordinates this menu with other menus. While the menu is in a group
+     * the group draws the background, so the menu does not draw or measure for its own.
+     */
+    void setMenuGroup(MenuGroup group) {
+        if (group != null && mMenuGroup == null && isBackgroundEnabled()) {
+            mBackgroundTrack.jumpTo(0f);
+        }
+        mMenuGroup = group;
+        requestMenuLayout();
+    }
 
-            mUiHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    isMenuOpened = true;
-                    isMenuAnimationRunning = false;
+    /**
+     * Gets the group that coordinates this menu with other menus, null if it is not in a group
+     */
+    public MenuGroup getMenuGroup() {
+        return mMenuGroup;
+    }
 
-                    if (mMenuListener != null) {
-                        mMenuListener.onMenuExpanded();
-                    }
-                }
-            }, (counter * mAnimationDelayPerItem) + mAnimationDuration);
+    int getMenuBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    /**
+     * Sets the clock and the queue that time the open, close, hide and show transitions of the
+     * menu and the hide animations of its buttons and labels. Passing a
+     * {@link com.wanderingcan.floatingactionmenu.internal.VirtualTimeScheduler} lets tests run
+     * the transitions without waiting for them.
+     */
+    public void setScheduler(@NonNull Scheduler scheduler) {
+        mScheduler.cancel(mSnapshotRunnable);
+        mScheduler = scheduler;
+        scheduleSnapshot();
+        mStateMachine.setScheduler(scheduler);
+        mTrackGroup.setScheduler(scheduler);
+        mFrameMonitor.setScheduler(scheduler);
+        for (int i = 0; i < mButtonsCount; i++) {
+            ((FloatingActionButton) getChildAt(i)).setScheduler(scheduler);
         }
     }
 
+    /**
+     * Gets the scheduler that times the transitions of the menu
+     */
+    @NonNull
+    public Scheduler getScheduler() {
+        return mScheduler;
+    }
+
     /**
      * Returns if the menu is open or not
      * @return true if the menu is open, false otherwise
      */
     public boolean isMenuOpened() {
-        return isMenuOpened;
+        return mStateMachine.isOpened();
     }
 
     /**
-     * Plays the hide animation and hides the menu. If the menu is currently open, it will play
-     * the close animation for the menu and then hide the menu
+     * Gets the step of the open animation that the button starts on, as placed by the
+     * {@link MenuLayoutStrategy}. Buttons that have not been laid out yet open in child order.
+     *
+     * @param position the position of the button among the visible buttons
      */
-    public void hide(){
-        if(getVisibility() == VISIBLE) {
-            int counter = 0;
-            if (isMenuOpened && !isMenuAnimationRunning) {
-                isMenuAnimationRunning = true;
-                if (isBackgroundEnabled()) {
-                    mHideBackgroundAnimator.start();
-                }
+    private int getStaggerStep(View child, int position) {
+        Object step = child.getTag(R.id.fab_stagger_step);
+        return step instanceof Integer ? (Integer) step : position;
+    }
 
-                mTouchDelegateGroup.setEnabled(false);
-                mCollapseAnimation.start();
-                mExpandAnimation.cancel();
-
-                int delay = 0;
-                for (int i = 0; i < getChildCount(); i++) {
-                    View child = getChildAt(i);
-                    if (child instanceof FloatingActionButton
-                            && child != mMenuButton && child.getVisibility() != GONE) {
-                        counter++;
-
-                        final FloatingActionButton fab = (FloatingActionButton) child;
-                        mUiHandler.postDelayed(new Runnable() {
-                            @Override
-                            public void run() {
-                                if (isMenuOpened()) {
-                                    fab.hide(true);
-                                    LabelView label = fab.getLabelView();
-                                    if (label != null) {
-                                        label.hide(true);
-                                    }
-                                }
-                            }
-                        }, delay);
-                        delay += mAnimationDelayPerItem;
-                    }
-                }
+    /**
+     * Collects the visible buttons that take part in the transition that is starting
+     *
+     * @return the number of collected buttons
+     */
+    private int collectTransitionButtons() {
+        if (mTransitionButtons.length < mButtonsCount) {
+            mTransitionButtons = new FloatingActionButton[mButtonsCount];
+        }
+
+        int count = 0;
+        for (int i = 0; i < mButtonsCount; i++) {
+            View child = getChildAt(i);
+            if (child != mMenuButton && child.getVisibility() != GONE) {
+                mTransitionButtons[count++] = (FloatingActionButton) child;
             }
-            int delay = counter > 0 ? (int) ((++counter * mAnimationDelayPerItem)
-                    + mAnimationDuration) : 0;
-            mUiHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    isMenuOpened = false;
-                    isMenuAnimationRunning = false;
-                    mMenuButton.hide(true);
-                }
-            }, delay);
-            mUiHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    setVisibility(GONE);
-                }
-            }, delay + mAnimationDuration);
         }
+        return count;
+    }
+
+    private void clearTransitionButtons() {
+        Arrays.fill(mTransitionButtons, null);
+    }
+
+    /**
+     * Gives every item the elevation it had before its animation suppressed it. Goes through all
+     * the children, so items of a transition that was cut short are restored as well.
+     */
+    private void restoreItemElevations() {
+        for (int i = 0; i < mButtonsCount; i++) {
+            View child = getChildAt(i);
+            if (child != mMenuButton) {
+                ((FloatingActionButton) child).restoreElevation();
+            }
+        }
+    }
+
+    /**
+     * Sets if the menu measures the frames of its transitions and animates with less detail on
+     * devices that keep dropping frames. The level that is reached is shared by every menu and
+     * kept for later launches, see {@link AnimationQuality}.
+     */
+    public void setAdaptiveQuality(boolean adaptive) {
+        mAdaptiveQuality = adaptive;
+        if (!adaptive) {
+            mFrameMonitor.stop();
+        }
+    }
+
+    /**
+     * Gets if the menu animates with less detail on devices that keep dropping frames
+     */
+    public boolean isAdaptiveQuality() {
+        return mAdaptiveQuality;
+    }
+
+    @AnimationQuality.Level
+    private int getQualityLevel() {
+        return mAdaptiveQuality
+                ? AnimationQuality.get(getContext()).getLevel()
+                : AnimationQuality.QUALITY_FULL;
+    }
+
+    /**
+     * Gets the quality level that the next transition plays with. Nothing animates when nobody can
+     * see the menu.
+     */
+    @AnimationQuality.Level
+    private int getEffectiveLevel() {
+        return isVisibleToUser() ? getQualityLevel() : AnimationQuality.QUALITY_INSTANT;
+    }
+
+    /**
+     * Returns if the menu is attached to a window that is shown, its parents are shown and some of
+     * it is on screen. A menu that is gone itself counts as visible, so it can animate back in.
+     */
+    private boolean isVisibleToUser() {
+        if (getWindowToken() == null || !mWindowVisible) {
+            return false;
+        }
+        ViewParent parent = getParent();
+        if (parent instanceof View && !((View) parent).isShown()) {
+            return false;
+        }
+        return getVisibility() != VISIBLE || getGlobalVisibleRect(mVisibleRect);
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mWindowVisible = visibility == VISIBLE;
+        if (!mWindowVisible) {
+            skipAnimations();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        //Dropped frames are counted against the refresh rate of the display the menu is shown on
+        WindowManager windowManager =
+                (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        mFrameMonitor.setRefreshRate(windowManager.getDefaultDisplay().getRefreshRate());
+
+        mAttachedToWindow = true;
+        if (mAdapter != null) {
+            mAdapter.registerDataSetObserver(mAdapterObserver);
+            //Catch up with the changes made while the menu was detached
+            applyAdapterChanges();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mAttachedToWindow = false;
+        if (mAdapter != null) {
+            mAdapter.unregisterDataSetObserver(mAdapterObserver);
+        }
+        skipAnimations();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Brings the menu to where its animations would end, used when nobody can see them. The
+     * transitions that are left run without delays, and the icon and background tracks and the
+     * animations of the buttons end.
+     */
+    private void skipAnimations() {
+        //The frames of a skipped transition say nothing about the device
+        mFrameMonitor.stop();
+        mTransitionLevel = AnimationQuality.QUALITY_INSTANT;
+        mStateMachine.skipToTarget();
+        mRotationTrack.finish();
+        mBackgroundTrack.finish();
+        for (int i = 0; i < mButtonsCount; i++) {
+            ((FloatingActionButton) getChildAt(i)).finishAnimations();
+        }
+    }
+
+    /**
+     * Hands the delays and durations of the quality level to the state machine
+     */
+    private void applyTiming() {
+        int level = getEffectiveLevel();
+        long delay = mAnimationDelayPerItem;
+        long duration = mAnimationDuration;
+        if (level >= AnimationQuality.QUALITY_INSTANT) {
+            delay = 0;
+            duration = 0;
+        } else if (level >= AnimationQuality.QUALITY_SHORT_STAGGER) {
+            delay /= 2;
+        }
+        mStateMachine.setTiming(delay, duration);
+    }
+
+    private long getScrimDuration() {
+        return mTransitionLevel >= AnimationQuality.QUALITY_NO_SCRIM ? 0 : mAnimationDuration;
+    }
+
+    private long getRotationDuration() {
+        return mTransitionLevel >= AnimationQuality.QUALITY_INSTANT ? 0 : mAnimationDuration;
+    }
+
+    /**
+     * Fixes the quality level for the transition that is starting and counts its frames
+     */
+    private void startTransitionQuality() {
+        mTransitionLevel = getEffectiveLevel();
+        if (mAdaptiveQuality && mTransitionLevel < AnimationQuality.QUALITY_INSTANT) {
+            mFrameMonitor.start();
+        } else {
+            mFrameMonitor.stop();
+        }
+    }
+
+    /**
+     * Reports the frames of the transition that settled
+     */
+    private void finishTransitionQuality() {
+        if (mFrameMonitor.isRunning()) {
+            mFrameMonitor.stop();
+            AnimationQuality.get(getContext()).onTransitionMeasured(
+                    mFrameMonitor.getFrameCount(), mFrameMonitor.getDroppedFrames());
+        }
+    }
+
+    /**
+     * Sets if the items and their labels drop their elevation while they animate. Scaling a view
+     * with a shadow makes the shadow be worked out again every frame, so without it the animations
+     * are cheaper. The elevation is given back when the menu settles.
+     */
+    public void setSuppressElevation(boolean suppress) {
+        mSuppressElevation = suppress;
+        if (!suppress) {
+            restoreItemElevations();
+        }
+    }
+
+    /**
+     * Gets if the items and their labels drop their elevation while they animate
+     */
+    public boolean isSuppressElevation() {
+        return mSuppressElevation;
+    }
+
+    /**
+     * Plays the hide animation and hides the menu. If the menu is currently open, it will play
+     * the close animation for the menu and then hide the menu
+     */
+    public void hide(){
+        applyTiming();
+        mStateMachine.hide();
     }
 
     /**
      * Plays the show animation and makes the Floating Action Menu visible
      */
     public void show(){
-        if(getVisibility() == GONE) {
+        applyTiming();
+        if (!mStateMachine.show() && getVisibility() == GONE) {
+            //The menu was hidden without going through hide()
             setVisibility(VISIBLE);
             mMenuButton.show(true);
         }
@@ -851,6 +2107,32 @@ public class FloatingActionMenu extends ViewGroup {
         isClosedOnTouchOutside = close;
     }
 
+    /**
+     * Gets if touching an area other than any Floating Action Buttons or LabelViews closes the menu
+     */
+    public boolean isClosedOnTouchOutside() {
+        return isClosedOnTouchOutside;
+    }
+
+    /**
+     * Sets which part of a touch outside of the items closes the menu. {@link #CLOSE_ON_UP} closes
+     * when a tap is lifted, {@link #CLOSE_ON_DOWN} closes as soon as the finger touches down and
+     * {@link #CLOSE_ON_DRAG} closes once the finger moves past the touch slop, taps are ignored.
+     * Only used when the menu is closed on touches outside.
+     * @param mode the part of the touch that closes the menu
+     */
+    public void setOutsideTouchMode(@OutsideTouchMode int mode) {
+        mOutsideTouchHandler.setMode(mode);
+    }
+
+    /**
+     * Gets which part of a touch outside of the items closes the menu
+     */
+    @OutsideTouchMode
+    public int getOutsideTouchMode() {
+        return mOutsideTouchHandler.getMode();
+    }
+
     /**
      * Gets the main Floating Action Button that opens and closes the Floating Action Menu
      */
@@ -865,14 +2147,39 @@ public class FloatingActionMenu extends ViewGroup {
         mAnimationDelayPerItem = durationMillis;
     }
 
+    /**
+     * Sets the longest time that opening or closing the menu may take. The delay between each
+     * item is shortened so that the last item finishes in time, no matter how many items the menu
+     * has. The animation of each item keeps its duration.
+     *
+     * @param durationMillis the time in milliseconds, 0 for no limit
+     */
+    public void setMaxAnimationTime(long durationMillis) {
+        mStateMachine.setMaxDuration(durationMillis);
+    }
+
+    /**
+     * Sets the interpolator that the delays between the items are spread along when the menu opens
+     * or closes. Null spreads them evenly.
+     */
+    public void setStaggerInterpolator(final Interpolator interpolator) {
+        if (interpolator == null) {
+            mStateMachine.setStaggerCurve(null);
+            return;
+        }
+        mStateMachine.setStaggerCurve(new MenuStateMachine.StaggerCurve() {
+            @Override
+            public float getOffset(float fraction) {
+                return interpolator.getInterpolation(fraction);
+            }
+        });
+    }
+
     /**
      * Sets the animation duration of each item
      */
     public void setAnimationDuration(long durationMillis){
         mAnimationDuration = durationMillis;
-        mCollapseAnimation.setDuration(durationMillis);
-        mShowBackgroundAnimator.setDuration(mAnimationDuration);
-        mHideBackgroundAnimator.setDuration(mAnimationDuration);
         for (int i = 0; i < getChildCount(); i++) {
             View child = getChildAt(i);
             if(child instanceof FloatingActionButton){
@@ -885,14 +2192,14 @@ public class FloatingActionMenu extends ViewGroup {
      * Sets the main button animation interpolator that is played when the menu is opened
      */
     public void setOpenInterpolator(Interpolator interpolator){
-        mExpandAnimation.setInterpolator(interpolator);
+        mOpenInterpolator = interpolator;
     }
 
     /**
      * Sets the main button animation interpolator that is played when the menu is closed
      */
     public void setCloseInterpolator(Interpolator interpolator){
-        mCollapseAnimation.setInterpolator(interpolator);
+        mCloseInterpolator = interpolator;
     }
 
     /**
@@ -900,7 +2207,7 @@ public class FloatingActionMenu extends ViewGroup {
      */
     public void setLabelsPosition(@LabelsPosition int position){
         mLabelsPosition = position;
-        requestLayout();
+        requestMenuLayout();
     }
 
     /**
@@ -908,7 +2215,8 @@ public class FloatingActionMenu extends ViewGroup {
      */
     public void setMenuDirection(@MenuDirection int direction){
         mExpandDirection = direction;
-        requestLayout();
+        mPrecomputedGeometry = null;
+        requestMenuLayout();
     }
 
     /**
@@ -918,15 +2226,19 @@ public class FloatingActionMenu extends ViewGroup {
      */
     public void setMenuOpenAnimation(@AnimRes int resId){
         mMenuShowAnimation = resId;
+        if (isBatching()) {
+            mPendingBatchFlags |= BATCH_SHOW_ANIMATION;
+        } else {
+            reloadShowAnimations();
+        }
+    }
+
+    private void reloadShowAnimations() {
         for (int i = mButtonsCount - 1; i >= 0; i--) {
             final View child = getChildAt(i);
             if (child != mMenuButton) {
-                Animation showAnimation = AnimationUtils.loadAnimation(getContext(), mMenuShowAnimation);
-                if (mMenuShowAnimation == R.anim.fab_in) {
-                    showAnimation.setInterpolator(new FastOutSlowInInterpolator());
-                }
-
-                ((FloatingActionButton) child).setShowAnimation(showAnimation, mAnimationDuration);
+                ((FloatingActionButton) child).setShowAnimation(loadShowAnimation(),
+                        mAnimationDuration);
             }
         }
     }
@@ -938,39 +2250,69 @@ public class FloatingActionMenu extends ViewGroup {
      */
     public void setMenuCloseAnimation(@AnimRes int resId){
         mMenuHideAnimation = resId;
+        if (isBatching()) {
+            mPendingBatchFlags |= BATCH_HIDE_ANIMATION;
+        } else {
+            reloadHideAnimations();
+        }
+    }
+
+    private void reloadHideAnimations() {
         for (int i = mButtonsCount - 1; i >= 0; i--) {
             final View child = getChildAt(i);
             if (child != mMenuButton) {
-                Animation hideAnimation = AnimationUtils.loadAnimation(getContext(), mMenuHideAnimation);
-                if (mMenuHideAnimation == R.anim.fab_in) {
-                    hideAnimation.setInterpolator(new FastOutSlowInInterpolator());
-                }
-
-                ((FloatingActionButton) child).setHideAnimation(hideAnimation, mAnimationDuration);
+                ((FloatingActionButton) child).setHideAnimation(loadHideAnimation(),
+                        mAnimationDuration);
             }
         }
     }
 
+    /**
+     * Sets the style of the labels and recreates the labels
+     */
     public void setLabelStyle(@StyleRes int style){
         mLabelsStyle = style;
-        removeLabels();
-        createLabels();
+        rebuildLabels();
     }
 
+    /**
+     * Sets the type of the labels and recreates the labels
+     */
     public void setLabelType(@LabelsType int type){
         mLabelsType = type;
-        removeLabels();
-        createLabels();
+        rebuildLabels();
+    }
+
+    private void rebuildLabels() {
+        if (isBatching()) {
+            mPendingBatchFlags |= BATCH_REBUILD_LABELS;
+        } else {
+            removeLabels();
+            createLabels();
+        }
     }
 
+    /**
+     * Removes the labels from all the Floating Action Buttons in the menu
+     */
     public void removeLabels(){
+        boolean removed = false;
         for (int i = mButtonsCount - 1; i >= 0; i--) {
             final View child = getChildAt(i);
             if(child instanceof FloatingActionButton) {
+                LabelView label = ((FloatingActionButton) child).getLabelView();
+                if (label != null) {
+                    removeViewInLayout(label);
+                    recycleLabel(label);
+                    removed = true;
+                }
                 ((FloatingActionButton) child).setLabelView(null);
             }
 
         }
+        if (removed) {
+            requestMenuLayout();
+        }
     }
 
     /**
@@ -979,7 +2321,7 @@ public class FloatingActionMenu extends ViewGroup {
      */
     public void setButtonMargin(int margin){
         mButtonMargin = margin;
-        requestLayout();
+        requestMenuLayout();
     }
 
     /**
@@ -988,7 +2330,7 @@ public class FloatingActionMenu extends ViewGroup {
      */
     public void setButtonMarginResource(@DimenRes int res){
         mButtonMargin = getResources().getDimensionPixelSize(res);
-        requestLayout();
+        requestMenuLayout();
     }
 
     /**
@@ -1003,7 +2345,7 @@ public class FloatingActionMenu extends ViewGroup {
     public Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState savedState = new SavedState(superState);
-        savedState.mExpanded = isMenuOpened;
+        savedState.mExpanded = isMenuOpened();
 
         return savedState;
     }
@@ -1012,8 +2354,10 @@ public class FloatingActionMenu extends ViewGroup {
     public void onRestoreInstanceState(Parcelable state) {
         if (state instanceof SavedState) {
             SavedState savedState = (SavedState) state;
-            isMenuOpened = savedState.mExpanded;
-            mTouchDelegateGroup.setEnabled(isMenuOpened);
+            mStateMachine.restore(savedState.mExpanded);
+            restoreItemElevations();
+            mTouchDelegateGroup.setEnabled(savedState.mExpanded);
+            mOutsideTouchHandler.setEnabled(savedState.mExpanded);
 
             super.onRestoreInstanceState(savedState.getSuperState());
         } else {
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Packs many small icons into a single bitmap. The drawables of an atlas all draw a region of the
+ * same bitmap, so the icons of a menu are uploaded as one texture the first time the menu opens
+ * instead of one texture per icon.
+ *
+ * <pre>
+ * IconAtlas atlas = new IconAtlas.Builder(resources)
+ *         .add("share", shareBitmap)
+ *         .add("edit", editDrawable, size, size)
+ *         .build();
+ * button.setImageDrawable(atlas.getDrawable("share"));
+ * </pre>
+ */
+public final class IconAtlas {
+
+    /**
+     * The transparent space between the icons, so filtering at the edge of a region never picks up
+     * the next icon
+     */
+    private static final int SPACING = 1;
+    private static final int MAX_WIDTH = 1024;
+
+    private final Resources mResources;
+    private final Bitmap mBitmap;
+    private final HashMap<String, Rect> mRegions;
+
+    private IconAtlas(Resources resources, Bitmap bitmap, HashMap<String, Rect> regions) {
+        mResources = resources;
+        mBitmap = bitmap;
+        mRegions = regions;
+    }
+
+    /**
+     * Gets a new drawable of the icon that was added with the key, null if there is none
+     */
+    @Nullable
+    public Drawable getDrawable(@NonNull String key) {
+        Rect region = mRegions.get(key);
+        if (region == null) {
+            return null;
+        }
+        return new RegionState(mBitmap, region, mResources).newDrawable();
+    }
+
+    /**
+     * Returns if an icon was added with the key
+     */
+    public boolean contains(@NonNull String key) {
+        return mRegions.containsKey(key);
+    }
+
+    /**
+     * Gets the bitmap all the icons are packed into
+     */
+    @NonNull
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    /**
+     * Collects icons and packs them into an {@link IconAtlas}
+     */
+    public static final class Builder {
+
+        private final Resources mResources;
+        private final ArrayList<Entry> mEntries = new ArrayList<>();
+
+        public Builder(@NonNull Resources resources) {
+            mResources = resources;
+        }
+
+        /**
+         * Adds the bitmap with its own size. A key that is added again replaces the icon.
+         */
+        @NonNull
+        public Builder add(@NonNull String key, @NonNull Bitmap icon) {
+            return add(new Entry(key, icon, null, icon.getWidth(), icon.getHeight()));
+        }
+
+        /**
+         * Adds the drawable drawn at the size in pixels. A key that is added again replaces the
+         * icon.
+         */
+        @NonNull
+        public Builder add(@NonNull String key, @NonNull Drawable icon, int width, int height) {
+            return add(new Entry(key, null, icon, width, height));
+        }
+
+        private Builder add(Entry entry) {
+            for (int i = 0; i < mEntries.size(); i++) {
+                if (mEntries.get(i).key.equals(entry.key)) {
+                    mEntries.set(i, entry);
+                    return this;
+                }
+            }
+            mEntries.add(entry);
+            return this;
+        }
+
+        /**
+         * Packs the icons into rows of a single bitmap, tallest icons first
+         */
+        @NonNull
+        public IconAtlas build() {
+            ArrayList<Entry> entries = new ArrayList<>(mEntries);
+            Collections.sort(entries, new Comparator<Entry>() {
+                @Override
+                public int compare(Entry lhs, Entry rhs) {
+                    return rhs.height - lhs.height;
+                }
+            });
+
+            int area = 0;
+            int widest = 1;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                area += (entry.width + SPACING) * (entry.height + SPACING);
+                widest = Math.max(widest, entry.width + SPACING);
+            }
+            int atlasWidth = Math.max(widest, Math.min(MAX_WIDTH, (int) Math.ceil(Math.sqrt(area))));
+
+            HashMap<String, Rect> regions = new HashMap<>();
+            int x = 0;
+            int y = 0;
+            int rowHeight = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (x + entry.width > atlasWidth) {
+                    x = 0;
+                    y += rowHeight + SPACING;
+                    rowHeight = 0;
+                }
+                regions.put(entry.key, new Rect(x, y, x + entry.width, y + entry.height));
+                x += entry.width + SPACING;
+                rowHeight = Math.max(rowHeight, entry.height);
+            }
+            int atlasHeight = Math.max(1, y + rowHeight);
+
+            Bitmap bitmap = Bitmap.createBitmap(atlasWidth, atlasHeight, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                Rect region = regions.get(entry.key);
+                if (entry.bitmap != null) {
+                    canvas.drawBitmap(entry.bitmap, region.left, region.top, null);
+                } else {
+                    Rect bounds = entry.drawable.copyBounds();
+                    entry.drawable.setBounds(region);
+                    entry.drawable.draw(canvas);
+                    entry.drawable.setBounds(bounds);
+                }
+            }
+            return new IconAtlas(mResources, bitmap, regions);
+        }
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final Bitmap bitmap;
+        final Drawable drawable;
+        final int width;
+        final int height;
+
+        Entry(String key, Bitmap bitmap, Drawable drawable, int width, int height) {
+            this.key = key;
+            this.bitmap = bitmap;
+            this.drawable = drawable;
+            this.width = Math.max(1, width);
+            this.height = Math.max(1, height);
+        }
+    }
+
+    private static final class RegionState extends Drawable.ConstantState {
+
+        final Bitmap mBitmap;
+        final Rect mRegion;
+        final Resources mResources;
+
+        RegionState(Bitmap bitmap, Rect region, Resources resources) {
+            mBitmap = bitmap;
+            mRegion = region;
+            mResources = resources;
+        }
+
+        @NonNull
+        @Override
+        public Drawable newDrawable() {
+            return new RegionDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return 0;
+        }
+    }
+
+    /**
+     * Draws one region of the atlas bitmap
+     */
+    private static final class RegionDrawable extends Drawable {
+
+        private final RegionState mState;
+        private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        private final int mWidth;
+        private final int mHeight;
+
+        RegionDrawable(RegionState state) {
+            mState = state;
+            //The region is in the density of the bitmap, it is scaled like a BitmapDrawable
+            int density = state.mResources.getDisplayMetrics().densityDpi;
+            mWidth = state.mBitmap.getScaledWidth(density) * state.mRegion.width()
+                    / state.mBitmap.getWidth();
+            mHeight = state.mBitmap.getScaledHeight(density) * state.mRegion.height()
+                    / state.mBitmap.getHeight();
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas) {
+            canvas.drawBitmap(mState.mBitmap, mState.mRegion, getBounds(), mPaint);
+        }
+
+        @Override
+        public int getIntrinsicWidth() {
+            return mWidth;
+        }
+
+        @Override
+        public int getIntrinsicHeight() {
+            return mHeight;
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            mPaint.setAlpha(alpha);
+            invalidateSelf();
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+            mPaint.setColorFilter(colorFilter);
+            invalidateSelf();
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+
+        @Override
+        public ConstantState getConstantState() {
+            return mState;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.annotation.ColorInt;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+import android.util.LruCache;
+
+/**
+ * A bounded cache of icons for Floating Action Buttons, keyed by the drawable resource and the
+ * theme it is resolved with. Every icon that is handed out is a new drawable made from a shared
+ * constant state, so buttons that use the same icon share one decoded bitmap and the icon is only
+ * decoded once per theme. The cached state is never tinted, the tint is set on each icon that is
+ * handed out since not every drawable keeps its color filter in its constant state.
+ *
+ * @see FloatingActionButton#setIcon(int, int)
+ */
+public final class IconCache {
+
+    /**
+     * The tint of icons that are drawn with their own colors
+     */
+    public static final int NO_TINT = Color.TRANSPARENT;
+
+    private static final int MAX_ICONS = 64;
+
+    private static final LruCache<Key, Drawable.ConstantState> sCache =
+            new LruCache<>(MAX_ICONS);
+
+    private IconCache() {
+    }
+
+    /**
+     * Gets the icon of the drawable resource with its own colors
+     */
+    @Nullable
+    public static Drawable getDrawable(@NonNull Context context, @DrawableRes int resId) {
+        return getDrawable(context, resId, NO_TINT);
+    }
+
+    /**
+     * Gets the icon of the drawable resource tinted with the color
+     *
+     * @param tint the color the icon is tinted with, or {@link #NO_TINT}
+     * @return a new drawable that shares its state with the other icons of the resource and the
+     *         theme of the context, null if the resource is 0
+     */
+    @Nullable
+    public static Drawable getDrawable(@NonNull Context context, @DrawableRes int resId,
+                                       @ColorInt int tint) {
+        if (resId == 0) {
+            return null;
+        }
+        Key key = new Key(resId, context.getTheme());
+        Drawable.ConstantState state;
+        synchronized (sCache) {
+            state = sCache.get(key);
+        }
+        if (state == null) {
+            Drawable drawable = ContextCompat.getDrawable(context, resId);
+            if (drawable == null) {
+                return null;
+            }
+            state = drawable.getConstantState();
+            if (state == null) {
+                return tint(drawable, tint);
+            }
+            synchronized (sCache) {
+                sCache.put(key, state);
+            }
+        }
+        Drawable drawable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                ? state.newDrawable(context.getResources(), context.getTheme())
+                : state.newDrawable(context.getResources());
+        return tint(drawable, tint);
+    }
+
+    private static Drawable tint(Drawable drawable, @ColorInt int tint) {
+        if (tint == NO_TINT) {
+            return drawable;
+        }
+        //Mutated so the filter stays on this icon, the decoded bitmap is still shared
+        drawable = drawable.mutate();
+        drawable.setColorFilter(tint, PorterDuff.Mode.SRC_IN);
+        return drawable;
+    }
+
+    /**
+     * Clears all the cached icons. The icons of themes that are no longer used are only dropped
+     * once newer icons push them out, so this frees them right away after a configuration change.
+     */
+    public static void clear() {
+        synchronized (sCache) {
+            sCache.evictAll();
+        }
+    }
+
+    /**
+     * A drawable resource resolved with a theme. The theme belongs to the resources of the
+     * context, so a new configuration or another theme gets icons of its own.
+     */
+    private static final class Key {
+        private final int mResId;
+        private final Resources.Theme mTheme;
+
+        Key(int resId, Resources.Theme theme) {
+            mResId = resId;
+            mTheme = theme;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mResId == key.mResId && mTheme == key.mTheme;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mResId + System.identityHashCode(mTheme);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decodes {@link IconSource}s on a background executor, so menus that are built at runtime never
+ * decode icons on the UI thread. Icons are downsampled to the size of the button, kept in a
+ * memory cache and can be kept across runs through a {@link DiskCache}. Requests for an icon that
+ * is already being decoded wait for the same decode.
+ * <p>
+ * The loader must be used from the UI thread, the callbacks are called on the UI thread.
+ */
+public class IconLoader {
+
+    private static final int DEFAULT_CACHE_SIZE = 2 * 1024 * 1024;
+    private static final int DEFAULT_THREADS = 2;
+
+    private static IconLoader sDefault;
+
+    /**
+     * Called on the UI thread when an icon is loaded
+     */
+    public interface Callback {
+        /**
+         * @param icon the decoded icon, null if it could not be decoded
+         */
+        void onIconLoaded(@Nullable Bitmap icon);
+    }
+
+    /**
+     * A cache that keeps decoded icons across runs. Both methods are called on a background
+     * thread.
+     */
+    public interface DiskCache {
+        /**
+         * Gets the icon of the key that was decoded at the size, null if it is not cached
+         */
+        @Nullable
+        Bitmap get(@NonNull String key, int size);
+
+        void put(@NonNull String key, int size, @NonNull Bitmap icon);
+    }
+
+    /**
+     * A pending load of an icon
+     */
+    public static final class Request {
+
+        private final Callback mCallback;
+        private boolean mCancelled;
+
+        private Request(Callback callback) {
+            mCallback = callback;
+        }
+
+        /**
+         * Stops the callback from being called, the icon is still decoded and cached
+         */
+        public void cancel() {
+            mCancelled = true;
+        }
+    }
+
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final HashMap<String, ArrayList<Request>> mPending = new HashMap<>();
+    private volatile DiskCache mDiskCache;
+
+    /**
+     * Gets the loader that buttons use unless they are given another one
+     */
+    @NonNull
+    public static synchronized IconLoader getDefault() {
+        if (sDefault == null) {
+            sDefault = new IconLoader(Executors.newFixedThreadPool(DEFAULT_THREADS,
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull final Runnable runnable) {
+                            Thread thread = new Thread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                    runnable.run();
+                                }
+                            }, "IconLoader");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }), DEFAULT_CACHE_SIZE);
+        }
+        return sDefault;
+    }
+
+    /**
+     * @param executor the executor that the icons are decoded on
+     * @param maxCacheBytes the size of the memory cache in bytes
+     */
+    public IconLoader(@NonNull Executor executor, int maxCacheBytes) {
+        mExecutor = executor;
+        mMemoryCache = new LruCache<String, Bitmap>(maxCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+    }
+
+    /**
+     * Sets the cache that keeps decoded icons across runs, null for none
+     */
+    public void setDiskCache(@Nullable DiskCache diskCache) {
+        mDiskCache = diskCache;
+    }
+
+    /**
+     * Loads the icon scaled down to fit the size. An icon that is in the memory cache is passed to
+     * the callback right away, otherwise it is decoded in the background.
+     *
+     * @param size the size in pixels the icon is shown at
+     * @return the request, which can be cancelled
+     */
+    @NonNull
+    public Request load(@NonNull final IconSource source, final int size,
+                        @NonNull Callback callback) {
+        Request request = new Request(callback);
+        final String key = source.getKey() + "@" + size;
+        Bitmap cached = mMemoryCache.get(key);
+        if (cached != null) {
+            callback.onIconLoaded(cached);
+            return request;
+        }
+
+        ArrayList<Request> waiting = mPending.get(key);
+        if (waiting != null) {
+            waiting.add(request);
+            return request;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(request);
+        mPending.put(key, waiting);
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap loaded;
+                try {
+                    loaded = loadInBackground(source, size);
+                } catch (RuntimeException | OutOfMemoryError e) {
+                    //The waiting requests are always answered, a failed load counts as not decoded
+                    loaded = null;
+                }
+                final Bitmap icon = loaded;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(key, icon);
+                    }
+                });
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Drops all the icons in the memory cache
+     */
+    public void clearMemoryCache() {
+        mMemoryCache.evictAll();
+    }
+
+    private void deliver(String key, Bitmap icon) {
+        if (icon != null) {
+            mMemoryCache.put(key, icon);
+        }
+        ArrayList<Request> waiting = mPending.remove(key);
+        if (waiting == null) {
+            return;
+        }
+        for (int i = 0; i < waiting.size(); i++) {
+            Request request = waiting.get(i);
+            if (!request.mCancelled) {
+                request.mCallback.onIconLoaded(icon);
+            }
+        }
+    }
+
+    private Bitmap loadInBackground(IconSource source, int size) {
+        String key = source.getKey();
+        DiskCache diskCache = mDiskCache;
+        if (diskCache != null) {
+            Bitmap cached = diskCache.get(key, size);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Bitmap icon = decode(source, size);
+        if (icon != null && diskCache != null) {
+            diskCache.put(key, size, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Decodes the icon at the largest power of two sample size that keeps it at least as big as
+     * the size, then scales it down to fit the size exactly
+     */
+    private static Bitmap decode(IconSource source, int size) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        source.decode(options);
+        int width = options.outWidth;
+        int height = options.outHeight;
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+
+        int sampleSize = 1;
+        while (size > 0 && width / (sampleSize * 2) >= size && height / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap = source.decode(options);
+        if (bitmap == null || size <= 0) {
+            return bitmap;
+        }
+
+        int longest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longest <= size) {
+            return bitmap;
+        }
+        int scaledWidth = Math.max(1, bitmap.getWidth() * size / longest);
+        int scaledHeight = Math.max(1, bitmap.getHeight() * size / longest);
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, scaledWidth, scaledHeight, true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+
+/**
+ * An icon that is decoded off the UI thread by the {@link IconLoader}. The loader decodes every
+ * source twice, first with {@link BitmapFactory.Options#inJustDecodeBounds} to read the size and
+ * then with the sample size that fits the icon to the button.
+ *
+ * @see FloatingActionButton#setIcon(IconSource, android.graphics.drawable.Drawable)
+ */
+public abstract class IconSource {
+
+    /**
+     * Gets the key that the decoded icon is cached by. Sources with the same key must decode to
+     * the same icon.
+     */
+    @NonNull
+    public abstract String getKey();
+
+    /**
+     * Decodes the icon with the options. Called on a background thread.
+     */
+    @Nullable
+    public abstract Bitmap decode(@NonNull BitmapFactory.Options options);
+
+    /**
+     * Gets a source for the image file
+     */
+    @NonNull
+    public static IconSource fromFile(@NonNull final File file) {
+        return new IconSource() {
+            @NonNull
+            @Override
+            public String getKey() {
+                return "file:" + file.getAbsolutePath();
+            }
+
+            @Override
+            public Bitmap decode(@NonNull BitmapFactory.Options options) {
+                return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            }
+        };
+    }
+
+    /**
+     * Gets a source for the encoded image. The bytes must not be changed afterwards.
+     *
+     * @param key the key that identifies the image
+     */
+    @NonNull
+    public static IconSource fromBytes(@NonNull final String key, @NonNull final byte[] data) {
+        return new IconSource() {
+            @NonNull
+            @Override
+            public String getKey() {
+                return "bytes:" + key;
+            }
+
+            @Override
+            public Bitmap decode(@NonNull BitmapFactory.Options options) {
+                return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+            }
+        };
+    }
+}
@@ -22,18 +22,25 @@ import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
-import android.os.Handler;
+import android.os.Build;
 import android.support.v7.widget.CardView;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.TypedValue;
+import android.view.ViewParent;
 import android.view.animation.Animation;
+import android.widget.FrameLayout;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
+import com.wanderingcan.floatingactionmenu.internal.HandlerScheduler;
 import com.wanderingcan.floatingactionmenu.internal.LabelViewCard;
 import com.wanderingcan.floatingactionmenu.internal.LabelViewImpl;
+import com.wanderingcan.floatingactionmenu.internal.LabelViewShadowCard;
 import com.wanderingcan.floatingactionmenu.internal.LabelViewText;
+import com.wanderingcan.floatingactionmenu.internal.PendingHide;
+import com.wanderingcan.floatingactionmenu.internal.Scheduler;
+import com.wanderingcan.floatingactionmenu.internal.ShadowCardDrawable;
 import com.wanderingcan.floatingactionmenu.R;
 
 /**
@@ -51,7 +58,14 @@ public class LabelView extends RelativeLayout {
     private Animation mShowAnimation;
     private Animation mHideAnimation;
 
-    private static final Handler mHandler = new Handler();
+    private float mSuppressedElevation = Float.NaN;
+
+    private final PendingHide mPendingHide = new PendingHide(new Runnable() {
+        @Override
+        public void run() {
+            setVisibility(INVISIBLE);
+        }
+    }, HandlerScheduler.getMainScheduler());
 
     public LabelView(Context context) {
         super(context);
@@ -88,8 +102,11 @@ public class LabelView extends RelativeLayout {
      * @see LabelView.Type
      */
     public void setLabelType(Type type){
+        //The new label starts with its own elevation
+        mSuppressedElevation = Float.NaN;
         removeAllViews();
         setLabelTypeInternal(type);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -169,7 +186,12 @@ public class LabelView extends RelativeLayout {
      * @param animate if true plays "show animation"
      */
     void show(boolean animate) {
-        if (isHidden()) {
+        //A hide that is still playing is cut short, the view shows again from where it is
+        boolean hiding = mPendingHide.cancel();
+        if (hiding) {
+            clearAnimation();
+        }
+        if (hiding || isHidden()) {
             if (animate) {
                 playShowAnimation();
             }
@@ -185,17 +207,69 @@ public class LabelView extends RelativeLayout {
     void hide(boolean animate) {
         if (!isHidden()) {
             if (animate) {
-                playHideAnimation();
-            }
-            mHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    setVisibility(INVISIBLE);
+                //A hide that is already playing keeps going
+                if (!mPendingHide.isPending()) {
+                    playHideAnimation();
+                    mPendingHide.post(mHideAnimation.getDuration());
                 }
-            }, animate ? mHideAnimation.getDuration() : 0);
+            } else {
+                //Nothing has to wait, so nothing is posted
+                mPendingHide.cancel();
+                clearAnimation();
+                setVisibility(INVISIBLE);
+            }
         }
     }
 
+    /**
+     * Ends the show or hide animation that is playing, a pending hide takes effect right away
+     */
+    void finishAnimations() {
+        clearAnimation();
+        mPendingHide.finish();
+    }
+
+    /**
+     * Sets the scheduler that times the end of the hide animation. A hide that is still pending is
+     * finished right away on the new scheduler.
+     */
+    void setScheduler(Scheduler scheduler) {
+        mPendingHide.setScheduler(scheduler);
+    }
+
+    /**
+     * Resets the LabelView so it can be reused through a {@link MenuViewPool}. The Label Type is
+     * kept since changing it rebuilds the views of the LabelView, and the theme is kept since it
+     * comes from the Context the LabelView was created with.
+     */
+    public void reset() {
+        mPendingHide.cancel();
+        mPendingHide.setScheduler(HandlerScheduler.getMainScheduler());
+        mShowAnimation = null;
+        mHideAnimation = null;
+        clearAnimation();
+        restoreElevation();
+        setTag(R.id.fab_snapshot, null);
+        setTag(R.id.fab_snapshot_bounds, null);
+        setText(null);
+        setVisibility(VISIBLE);
+        setScaleX(1f);
+        setScaleY(1f);
+        setAlpha(1f);
+        setTranslationX(0f);
+        setTranslationY(0f);
+    }
+
+    /**
+     * Binds the text and the text appearance to the LabelView
+     *
+     * @param textAppearance the TextAppearance style resource
+     */
+    public void bind(CharSequence text, int textAppearance) {
+        setTextAppearance(getContext(), textAppearance);
+        setText(text);
+    }
+
     public String getText(){
         return mImpl.getText();
     }
@@ -205,6 +279,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setText(CharSequence text){
         mImpl.setText(text);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -212,6 +287,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setText (char[] text, int start, int len){
         mImpl.setText(text, start, len);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -219,6 +295,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setText (CharSequence text, TextView.BufferType type){
         mImpl.setText(text, type);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -228,6 +305,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setText (int resId){
         mImpl.setText(resId);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -237,6 +315,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setText (int resId, TextView.BufferType type){
         mImpl.setText(resId, type);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -247,6 +326,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setTextSize (float size){
         mImpl.setTextSize(size);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -258,6 +338,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setTextSize (int unit, float size){
         mImpl.setTextSize(unit, size);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -266,6 +347,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setTextAppearance (Context context, int resId){
         mImpl.setTextAppearance(context, resId);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -273,6 +355,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setTextColor (ColorStateList colors){
         mImpl.setTextColor(colors);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -280,6 +363,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setTextColor (int color){
         mImpl.setTextColor(color);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -287,6 +371,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setEms (int ems){
         mImpl.setEms(ems);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -294,6 +379,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setMaxEms(int maxEms){
         mImpl.setMaxEms(maxEms);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -301,6 +387,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setMinEms(int minEms){
         mImpl.setMinEms(minEms);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -311,23 +398,27 @@ public class LabelView extends RelativeLayout {
      */
     public void setEllipsize (TextUtils.TruncateAt where){
         mImpl.setEllipsize(where);
+        invalidateMenuSnapshot();
     }
 
     @Override
     public void setBackgroundColor(int color) {
         mImpl.setBackgroundColor(color);
+        invalidateMenuSnapshot();
     }
 
     @Override
     public void setBackground(Drawable background) {
         if(mImpl != null) {
             mImpl.setBackground(background);
+            invalidateMenuSnapshot();
         }
     }
 
     @Override
     public void setBackgroundResource(int resId) {
         mImpl.setBackgroundResource(resId);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -339,6 +430,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setRadius(float radius) {
         mImpl.setRadius(radius);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -405,6 +497,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setContentPadding(int left, int top, int right, int bottom) {
         mImpl.setContentPadding(left, top, right, bottom);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -425,6 +518,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setUseCompatPadding(boolean useCompatPadding) {
         mImpl.setUseCompatPadding(useCompatPadding);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -457,6 +551,7 @@ public class LabelView extends RelativeLayout {
      */
     public void setPreventCornerOverlap(boolean preventCornerOverlap) {
         mImpl.setPreventCornerOverlap(preventCornerOverlap);
+        invalidateMenuSnapshot();
     }
 
     /**
@@ -473,6 +568,37 @@ public class LabelView extends RelativeLayout {
         return mImpl.getPreventCornerOverlap();
     }
 
+    /**
+     * Lets the Floating Action Menu that holds the LabelView know that its snapshot no longer
+     * matches how the LabelView looks
+     */
+    private void invalidateMenuSnapshot() {
+        ViewParent parent = getParent();
+        if (parent instanceof FloatingActionMenu) {
+            ((FloatingActionMenu) parent).invalidateSnapshot();
+        }
+    }
+
+    /**
+     * Drops the elevation of the LabelView to zero until {@link #restoreElevation()} is called
+     */
+    void suppressElevation() {
+        if (Float.isNaN(mSuppressedElevation)) {
+            mSuppressedElevation = mImpl.getElevation();
+            mImpl.setElevation(0f);
+        }
+    }
+
+    /**
+     * Gives the LabelView back the elevation it had before {@link #suppressElevation()} was called
+     */
+    void restoreElevation() {
+        if (!Float.isNaN(mSuppressedElevation)) {
+            mImpl.setElevation(mSuppressedElevation);
+            mSuppressedElevation = Float.NaN;
+        }
+    }
+
     private void setLabelTypeInternal(Type type){
         Context context = getContext();
         TextView textView = new TextView(context);
@@ -488,17 +614,31 @@ public class LabelView extends RelativeLayout {
             int cardElevation = res.getDimensionPixelSize(R.dimen.cardview_default_elevation);
             int cardRadius = res.getDimensionPixelSize(R.dimen.card_radius);
 
-            CardView cardView = new CardView(context);
-            cardView.addView(textView);
-            cardView.setCardBackgroundColor(Color.WHITE);
-            cardView.setCardElevation(cardElevation);
-            cardView.setRadius(cardRadius);
-            cardView.setContentPadding(cardPaddingX, cardPaddingY, cardPaddingX, cardPaddingY);
-            cardView.setUseCompatPadding(true);
-
-            addView(cardView);
-
-            mImpl = new LabelViewCard(textView, cardView);
+            if (Build.VERSION.SDK_INT >= 21) {
+                CardView cardView = new CardView(context);
+                cardView.addView(textView);
+                cardView.setCardBackgroundColor(Color.WHITE);
+                cardView.setCardElevation(cardElevation);
+                cardView.setRadius(cardRadius);
+                cardView.setContentPadding(cardPaddingX, cardPaddingY, cardPaddingX, cardPaddingY);
+                cardView.setUseCompatPadding(true);
+
+                addView(cardView);
+
+                mImpl = new LabelViewCard(textView, cardView);
+            } else {
+                //CardView rasterizes its shadow for every label, the shadows are shared instead
+                FrameLayout cardLayout = new FrameLayout(context);
+                cardLayout.addView(textView);
+                ShadowCardDrawable card = new ShadowCardDrawable(Color.WHITE, cardRadius,
+                        cardElevation, cardElevation, res.getDisplayMetrics().density);
+
+                addView(cardLayout);
+
+                mImpl = new LabelViewShadowCard(textView, cardLayout, card);
+                mImpl.setContentPadding(cardPaddingX, cardPaddingY, cardPaddingX, cardPaddingY);
+                mImpl.setUseCompatPadding(true);
+            }
             mType = Type.CARD;
         }
     }
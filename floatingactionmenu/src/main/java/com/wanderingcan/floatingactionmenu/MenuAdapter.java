@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.database.DataSetObservable;
+import android.database.DataSetObserver;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Supplies the items of a {@link FloatingActionMenu}. Each item is identified by a stable id, so
+ * when {@link #notifyDataSetChanged()} is called the menu only inserts, removes, moves and rebinds
+ * the buttons whose items have changed.
+ *
+ * @see FloatingActionMenu#setAdapter(MenuAdapter)
+ */
+public abstract class MenuAdapter {
+
+    private final DataSetObservable mObservable = new DataSetObservable();
+
+    /**
+     * Gets the number of items in the adapter
+     */
+    public abstract int getItemCount();
+
+    /**
+     * Gets the stable id of the item at the position. The id of an item must not change while the
+     * item is in the adapter, and must be unique within the adapter.
+     */
+    public abstract long getItemId(int position);
+
+    /**
+     * Gets the icon of the item at the position
+     */
+    @Nullable
+    public abstract Drawable getIcon(int position);
+
+    /**
+     * Gets the text of the label of the item at the position, null if the item has no label
+     */
+    @Nullable
+    public CharSequence getLabel(int position) {
+        return null;
+    }
+
+    /**
+     * Gets the size of the Floating Action Button that is created for the item at the position.
+     * The size of a button can not change, so it is only read when the button is created.
+     *
+     * @return {@link FloatingActionButton#SIZE_NORMAL} or {@link FloatingActionButton#SIZE_MINI}
+     */
+    public int getButtonSize(int position) {
+        return FloatingActionButton.SIZE_NORMAL;
+    }
+
+    /**
+     * Returns if the item at the position is enabled
+     */
+    public boolean isEnabled(int position) {
+        return true;
+    }
+
+    /**
+     * Binds the item at the position to the Floating Action Button. Override to customize the
+     * button beyond the icon, label and enabled state.
+     */
+    public void onBindButton(@NonNull FloatingActionButton button, int position) {
+        button.setImageDrawable(getIcon(position));
+        CharSequence label = getLabel(position);
+        button.setLabelText(label != null ? label.toString() : null);
+        button.setEnabled(isEnabled(position));
+    }
+
+    /**
+     * Notifies the attached Floating Action Menu that the items have changed
+     */
+    public void notifyDataSetChanged() {
+        mObservable.notifyChanged();
+    }
+
+    void registerDataSetObserver(DataSetObserver observer) {
+        mObservable.registerObserver(observer);
+    }
+
+    void unregisterDataSetObserver(DataSetObserver observer) {
+        mObservable.unregisterObserver(observer);
+    }
+}
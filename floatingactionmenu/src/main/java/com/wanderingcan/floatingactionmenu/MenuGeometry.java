@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+/**
+ * The sizes and positions of the items of a menu, worked out by a {@link MenuLayoutStrategy}.
+ * A MenuGeometry does not touch any views, so it can be filled and laid out on a background thread
+ * and then handed to {@link FloatingActionMenu#setPrecomputedGeometry(MenuGeometry)}, which only
+ * copies the result when the menu lays out with the same item sizes.
+ * <p>
+ * A MenuGeometry is not thread safe, it should only be used by one thread at a time.
+ *
+ * @see FloatingActionMenu#createGeometry()
+ */
+public final class MenuGeometry {
+
+    private MenuLayoutStrategy mStrategy;
+    private final MenuLayoutStrategy.Params mParams = new MenuLayoutStrategy.Params();
+
+    private int mCount;
+    private int[] mSizes = new int[0];
+    private int[] mFrames = new int[0];
+    private final int[] mMeasuredSize = new int[2];
+
+    private boolean mLaidOut;
+    private int mWidth;
+    private int mHeight;
+
+    public MenuGeometry(MenuLayoutStrategy strategy) {
+        mStrategy = strategy;
+    }
+
+    public void setStrategy(MenuLayoutStrategy strategy) {
+        mStrategy = strategy;
+        mLaidOut = false;
+    }
+
+    public MenuLayoutStrategy getStrategy() {
+        return mStrategy;
+    }
+
+    /**
+     * Gets the settings that are handed to the strategy. Changes made to them are used by the next
+     * {@link #measure()} or {@link #layout(int, int)}.
+     */
+    public MenuLayoutStrategy.Params getParams() {
+        return mParams;
+    }
+
+    /**
+     * Sets the number of items, including the main button at index 0. Keeps the sizes of the
+     * items that are still within the count.
+     */
+    public void setItemCount(int count) {
+        if (mSizes.length < count * MenuLayoutStrategy.SIZE_STRIDE) {
+            int[] sizes = new int[count * MenuLayoutStrategy.SIZE_STRIDE];
+            System.arraycopy(mSizes, 0, sizes, 0, mSizes.length);
+            mSizes = sizes;
+            mFrames = new int[count * MenuLayoutStrategy.FRAME_STRIDE];
+        }
+        mCount = count;
+        mLaidOut = false;
+    }
+
+    public int getItemCount() {
+        return mCount;
+    }
+
+    /**
+     * Sets the measured size of an item and its label
+     *
+     * @param labelWidth the width of the label, 0 if the item has no label
+     * @param labelHeight the height of the label, 0 if the item has no label
+     */
+    public void setItemSize(int index, int width, int height, int labelWidth, int labelHeight) {
+        int offset = index * MenuLayoutStrategy.SIZE_STRIDE;
+        mSizes[offset + MenuLayoutStrategy.SIZE_WIDTH] = width;
+        mSizes[offset + MenuLayoutStrategy.SIZE_HEIGHT] = height;
+        mSizes[offset + MenuLayoutStrategy.SIZE_LABEL_WIDTH] = labelWidth;
+        mSizes[offset + MenuLayoutStrategy.SIZE_LABEL_HEIGHT] = labelHeight;
+        mLaidOut = false;
+    }
+
+    /**
+     * Works out the size the menu needs to show all the items
+     */
+    public void measure() {
+        mStrategy.measure(mCount, mSizes, mParams, mMeasuredSize);
+    }
+
+    public int getMeasuredWidth() {
+        return mMeasuredSize[0];
+    }
+
+    public int getMeasuredHeight() {
+        return mMeasuredSize[1];
+    }
+
+    /**
+     * Places the items within a menu of the given size
+     */
+    public void layout(int width, int height) {
+        mStrategy.layout(mCount, mSizes, mParams, width, height, mFrames);
+        mWidth = width;
+        mHeight = height;
+        mLaidOut = true;
+    }
+
+    /**
+     * Copies the positions of another geometry if it was laid out from the same sizes, settings
+     * and bounds that this geometry would be laid out with
+     *
+     * @return true if the positions were copied
+     */
+    public boolean copyLayoutFrom(MenuGeometry other, int width, int height) {
+        if (!other.mLaidOut || other.mWidth != width || other.mHeight != height
+                || other.mCount != mCount || !mStrategy.equals(other.mStrategy)
+                || !sameParams(mParams, other.mParams)) {
+            return false;
+        }
+        int sizes = mCount * MenuLayoutStrategy.SIZE_STRIDE;
+        for (int i = 0; i < sizes; i++) {
+            if (mSizes[i] != other.mSizes[i]) {
+                return false;
+            }
+        }
+        System.arraycopy(other.mFrames, 0, mFrames, 0, mCount * MenuLayoutStrategy.FRAME_STRIDE);
+        mWidth = width;
+        mHeight = height;
+        mLaidOut = true;
+        return true;
+    }
+
+    public int getLeft(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_LEFT);
+    }
+
+    public int getTop(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_TOP);
+    }
+
+    /**
+     * Gets the left of the label of the item, {@link MenuLayoutStrategy#NO_POSITION} if the label
+     * is not placed
+     */
+    public int getLabelLeft(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_LABEL_LEFT);
+    }
+
+    public int getLabelTop(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_LABEL_TOP);
+    }
+
+    public int getTouchLeft(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_TOUCH_LEFT);
+    }
+
+    public int getTouchTop(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_TOUCH_TOP);
+    }
+
+    public int getTouchRight(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_TOUCH_RIGHT);
+    }
+
+    public int getTouchBottom(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_TOUCH_BOTTOM);
+    }
+
+    /**
+     * Gets the step of the open animation the item starts on
+     */
+    public int getStaggerStep(int index) {
+        return getFrame(index, MenuLayoutStrategy.FRAME_STAGGER);
+    }
+
+    private int getFrame(int index, int field) {
+        return mFrames[index * MenuLayoutStrategy.FRAME_STRIDE + field];
+    }
+
+    private static boolean sameParams(MenuLayoutStrategy.Params a, MenuLayoutStrategy.Params b) {
+        return a.direction == b.direction
+                && a.labelsPosition == b.labelsPosition
+                && a.buttonMargin == b.buttonMargin
+                && a.labelsMargin == b.labelsMargin
+                && a.contentPadding == b.contentPadding
+                && a.paddingLeft == b.paddingLeft
+                && a.paddingTop == b.paddingTop
+                && a.paddingRight == b.paddingRight
+                && a.paddingBottom == b.paddingBottom
+                && a.scrollShift == b.scrollShift;
+    }
+}
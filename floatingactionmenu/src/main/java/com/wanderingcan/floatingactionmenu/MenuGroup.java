@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import com.wanderingcan.floatingactionmenu.internal.HandlerScheduler;
+import com.wanderingcan.floatingactionmenu.internal.OutsideTouchHandler;
+import com.wanderingcan.floatingactionmenu.internal.ValueTrack;
+
+import java.util.ArrayList;
+
+/**
+ * Coordinates several {@link FloatingActionMenu}s in one layout. At most one menu of the group is
+ * open at a time, opening a menu closes the menu that was open in the same frame. The group owns a
+ * single scrim that dims the host behind the open menu, so the menus of the group do not draw or
+ * measure for their own background. The scrim is animated on the scheduler of the menu that opens
+ * or closes, and touches on it close the open menu the way its outside touch mode says.
+ */
+public class MenuGroup {
+
+    private static final Interpolator SCRIM_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    private final ViewGroup mHost;
+    private final ArrayList<FloatingActionMenu> mMenus = new ArrayList<>();
+    private final View mScrim;
+    private final ValueTrack mScrimTrack;
+    private final OutsideTouchHandler mOutsideTouchHandler;
+    private int mScrimColor = Color.TRANSPARENT;
+    private boolean mScrimColorSet;
+
+    /**
+     * @param host the layout that the scrim is added to, the menus of the group should be within it
+     */
+    public MenuGroup(@NonNull ViewGroup host) {
+        mHost = host;
+        mScrim = new View(host.getContext());
+        mScrim.setVisibility(View.GONE);
+        mOutsideTouchHandler = new OutsideTouchHandler(
+                ViewConfiguration.get(host.getContext()).getScaledTouchSlop(), new Runnable() {
+                    @Override
+                    public void run() {
+                        FloatingActionMenu menu = getOpenMenu();
+                        if (menu != null) {
+                            menu.close();
+                        }
+                    }
+                });
+        //The scrim is not clickable, touches it does not use reach the views behind it
+        mScrim.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch(View v, MotionEvent event) {
+                if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                    FloatingActionMenu menu = getOpenMenu();
+                    boolean closes = menu != null && menu.isClosedOnTouchOutside();
+                    mOutsideTouchHandler.setEnabled(closes);
+                    if (closes) {
+                        mOutsideTouchHandler.setMode(menu.getOutsideTouchMode());
+                    }
+                }
+                return mOutsideTouchHandler.onTouchEvent(event);
+            }
+        });
+        mScrimTrack = new ValueTrack(new ValueTrack.Target() {
+            @Override
+            public void onValue(float value) {
+                int alpha = Math.round(value);
+                mScrim.setBackgroundColor(Color.argb(alpha, Color.red(mScrimColor),
+                        Color.green(mScrimColor), Color.blue(mScrimColor)));
+                mScrim.setVisibility(alpha > 0 ? View.VISIBLE : View.GONE);
+            }
+        }, HandlerScheduler.getMainScheduler(), 0f);
+    }
+
+    /**
+     * Adds a menu to the group. Unless a scrim color was set, the background color of the first
+     * menu that has one is used for the scrim.
+     */
+    public void addMenu(@NonNull FloatingActionMenu menu) {
+        if (mMenus.contains(menu)) {
+            return;
+        }
+        if (!mScrimColorSet && mScrimColor == Color.TRANSPARENT) {
+            mScrimColor = menu.getMenuBackgroundColor();
+        }
+        if (mMenus.isEmpty()) {
+            mScrimTrack.setScheduler(menu.getScheduler());
+        }
+        mMenus.add(menu);
+        menu.setMenuGroup(this);
+    }
+
+    public void removeMenu(@NonNull FloatingActionMenu menu) {
+        if (mMenus.remove(menu)) {
+            menu.setMenuGroup(null);
+            if (menu.isMenuOpened() && getOpenMenu() == null) {
+                mScrimTrack.jumpTo(0f);
+            }
+        }
+    }
+
+    /**
+     * Sets the color that the scrim dims to when a menu of the group is open
+     */
+    public void setScrimColor(int color) {
+        mScrimColor = color;
+        mScrimColorSet = true;
+    }
+
+    /**
+     * Gets the menu of the group that is open or about to open, null if there is none
+     */
+    public FloatingActionMenu getOpenMenu() {
+        for (int i = 0; i < mMenus.size(); i++) {
+            FloatingActionMenu menu = mMenus.get(i);
+            if (menu.isOpenTarget()) {
+                return menu;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Called when a menu of the group is requested to open, closes the other menus in the same
+     * frame
+     */
+    void onOpenRequested(FloatingActionMenu opening) {
+        for (int i = 0; i < mMenus.size(); i++) {
+            FloatingActionMenu menu = mMenus.get(i);
+            if (menu != opening && menu.isOpenTarget()) {
+                menu.close();
+            }
+        }
+    }
+
+    void onOpenStarted(FloatingActionMenu menu, long duration) {
+        if (Color.alpha(mScrimColor) == 0) {
+            return;
+        }
+        attachScrim(menu);
+        mScrimTrack.setScheduler(menu.getScheduler());
+        mScrimTrack.animateTo(Color.alpha(mScrimColor), duration, SCRIM_INTERPOLATOR);
+    }
+
+    void onCloseStarted(FloatingActionMenu menu, long duration) {
+        FloatingActionMenu open = getOpenMenu();
+        if (open == null || open == menu) {
+            mScrimTrack.setScheduler(menu.getScheduler());
+            mScrimTrack.animateTo(0f, duration, SCRIM_INTERPOLATOR);
+        }
+    }
+
+    /**
+     * Adds the scrim to the host right below the child of the host that holds the menu
+     */
+    private void attachScrim(FloatingActionMenu menu) {
+        View child = menu;
+        while (child.getParent() != mHost && child.getParent() instanceof View) {
+            child = (View) child.getParent();
+        }
+        if (child.getParent() != mHost) {
+            return;
+        }
+
+        int index = mHost.indexOfChild(child);
+        if (mScrim.getParent() == mHost) {
+            if (mHost.indexOfChild(mScrim) == index - 1) {
+                return;
+            }
+            mHost.removeView(mScrim);
+            index = mHost.indexOfChild(child);
+        }
+        mHost.addView(mScrim, index, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+/**
+ * Decides where the items of a {@link FloatingActionMenu} and their labels are placed. A strategy
+ * only works on primitive arrays that are owned and reused by the caller, so it must not allocate
+ * and must not touch any views.
+ * <p>
+ * Item 0 is always the main button of the menu, the items after it are the Floating Action Buttons
+ * in the order they were added to the menu.
+ * <p>
+ * A {@link MenuGeometry} only reuses a layout worked out by another strategy if the two strategies
+ * are equal. Strategies with settings should implement {@link Object#equals(Object)} to compare
+ * them, otherwise only the same instance is treated as equal.
+ *
+ * @see FloatingActionMenu#setLayoutStrategy(MenuLayoutStrategy)
+ */
+public interface MenuLayoutStrategy {
+
+    /**
+     * The sizes array holds {@link #SIZE_STRIDE} values per item
+     */
+    int SIZE_STRIDE = 4;
+    int SIZE_WIDTH = 0;
+    int SIZE_HEIGHT = 1;
+    /**
+     * The width of the label of the item, 0 if the item has no label
+     */
+    int SIZE_LABEL_WIDTH = 2;
+    /**
+     * The height of the label of the item, 0 if the item has no label
+     */
+    int SIZE_LABEL_HEIGHT = 3;
+
+    /**
+     * The frames array holds {@link #FRAME_STRIDE} values per item
+     */
+    int FRAME_STRIDE = 9;
+    int FRAME_LEFT = 0;
+    int FRAME_TOP = 1;
+    /**
+     * The left of the label of the item, {@link #NO_POSITION} if the label is not placed
+     */
+    int FRAME_LABEL_LEFT = 2;
+    int FRAME_LABEL_TOP = 3;
+    /**
+     * The area that forwards touches to the item. An empty area means the item only receives the
+     * touches within its own bounds.
+     */
+    int FRAME_TOUCH_LEFT = 4;
+    int FRAME_TOUCH_TOP = 5;
+    int FRAME_TOUCH_RIGHT = 6;
+    int FRAME_TOUCH_BOTTOM = 7;
+    /**
+     * The step of the open animation the item starts on, items on the same step animate together.
+     * The menu closes in the reverse order.
+     */
+    int FRAME_STAGGER = 8;
+
+    int NO_POSITION = Integer.MIN_VALUE;
+
+    /**
+     * Works out the size the menu needs to show all the items
+     *
+     * @param count the number of items, including the main button
+     * @param sizes the measured sizes of the items, see {@link #SIZE_STRIDE}
+     * @param params the settings of the menu
+     * @param outSize receives the width at index 0 and the height at index 1
+     */
+    void measure(int count, int[] sizes, Params params, int[] outSize);
+
+    /**
+     * Places the items of the menu within the bounds of the menu
+     *
+     * @param count the number of items, including the main button
+     * @param sizes the measured sizes of the items, see {@link #SIZE_STRIDE}
+     * @param params the settings of the menu
+     * @param width the width of the menu
+     * @param height the height of the menu
+     * @param outFrames receives the positions of the items, see {@link #FRAME_STRIDE}
+     */
+    void layout(int count, int[] sizes, Params params, int width, int height, int[] outFrames);
+
+    /**
+     * The settings of the menu that are handed to a strategy. The same instance is reused for every
+     * pass, so a strategy must not keep a reference to it.
+     */
+    class Params {
+        @FloatingActionMenu.MenuDirection
+        public int direction;
+        @FloatingActionMenu.LabelsPosition
+        public int labelsPosition;
+        public int buttonMargin;
+        public int labelsMargin;
+        public int contentPadding;
+        public int paddingLeft;
+        public int paddingTop;
+        public int paddingRight;
+        public int paddingBottom;
+        /**
+         * How far the items are scrolled past the first attached item, in pixels
+         */
+        public int scrollShift;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+import android.support.annotation.StyleRes;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+
+import java.util.WeakHashMap;
+
+/**
+ * An immutable set of resolved {@link FloatingActionMenu} attributes. A MenuSpec obtained from a
+ * style is cached per theme, so many identically styled menus only resolve their attributes once.
+ *
+ * @see #obtain(Context, int)
+ * @see FloatingActionMenu#FloatingActionMenu(Context, MenuSpec)
+ */
+public final class MenuSpec {
+
+    private static final WeakHashMap<Resources.Theme, SparseArray<MenuSpec>> sCache =
+            new WeakHashMap<>();
+
+    final int expandDirection;
+    final int labelsPosition;
+    final int labelsStyle;
+    final int labelsType;
+    final int labelsMargin;
+    final int buttonMargin;
+    final int contentPadding;
+    final int backgroundColor;
+    final boolean fillParent;
+    final boolean closeOnOutsideTouch;
+    final int outsideTouchMode;
+    final boolean scrollable;
+    final boolean suppressElevation;
+    final boolean snapshotFirstOpen;
+    final boolean adaptiveQuality;
+    final float radialStartAngle;
+    final float radialSweepAngle;
+    final int radialRadius;
+    final int gridSpan;
+    final int gridOrientation;
+    final int showAnimation;
+    final int hideAnimation;
+    final long animationDuration;
+    final long animationDelayPerItem;
+    final long maxAnimationTime;
+    final int staggerInterpolator;
+
+    private MenuSpec(Resources res, TypedArray attr) {
+        labelsMargin = res.getDimensionPixelSize(R.dimen.fab_labels_margin);
+        buttonMargin = res.getDimensionPixelSize(R.dimen.fab_actions_spacing);
+
+        expandDirection = attr.getInt(R.styleable.FloatingActionMenu_layout_expand,
+                FloatingActionMenu.UP);
+        labelsPosition = attr.getInt(R.styleable.FloatingActionMenu_layout_labels,
+                FloatingActionMenu.LABELS_LEFT);
+        contentPadding = attr.getDimensionPixelSize(R.styleable.FloatingActionMenu_content_padding,
+                (int) res.getDimension(R.dimen.fab_margin));
+
+        labelsStyle = attr.getResourceId(R.styleable.FloatingActionMenu_labelStyle, 0);
+        labelsType = attr.getInt(R.styleable.FloatingActionMenu_labelType, 0);
+
+        backgroundColor = attr.getColor(R.styleable.FloatingActionMenu_menuBackgroundColor,
+                Color.TRANSPARENT);
+        fillParent = attr.getBoolean(R.styleable.FloatingActionMenu_menuBackgroundFillParent,
+                false);
+
+        //Animations
+        showAnimation = attr.getResourceId(R.styleable.FloatingActionMenu_menuOpenAnimation,
+                R.anim.fab_in);
+        hideAnimation = attr.getResourceId(R.styleable.FloatingActionMenu_menuCloseAnimation,
+                R.anim.fab_out);
+        animationDuration = attr.getInt(R.styleable.FloatingActionMenu_menuItemAnimationTime,
+                (int) FloatingActionMenu.ANIMATION_DURATION);
+        animationDelayPerItem = attr.getInt(R.styleable.FloatingActionMenu_menuItemAnimationDelay,
+                100);
+        maxAnimationTime = attr.getInt(R.styleable.FloatingActionMenu_menuMaxAnimationTime, 0);
+        staggerInterpolator = attr.getResourceId(
+                R.styleable.FloatingActionMenu_menuStaggerInterpolator, 0);
+
+        closeOnOutsideTouch = attr.getBoolean(R.styleable.FloatingActionMenu_closeOnOutsideTouch,
+                true);
+        outsideTouchMode = attr.getInt(R.styleable.FloatingActionMenu_menuOutsideTouchMode,
+                FloatingActionMenu.CLOSE_ON_UP);
+        scrollable = attr.getBoolean(R.styleable.FloatingActionMenu_menuScrollable, false);
+        suppressElevation = attr.getBoolean(
+                R.styleable.FloatingActionMenu_menuSuppressElevation, false);
+        snapshotFirstOpen = attr.getBoolean(
+                R.styleable.FloatingActionMenu_menuSnapshotFirstOpen, false);
+        adaptiveQuality = attr.getBoolean(R.styleable.FloatingActionMenu_menuAdaptiveQuality,
+                false);
+
+        radialStartAngle = attr.getFloat(R.styleable.FloatingActionMenu_menuRadialStartAngle, 90f);
+        radialSweepAngle = attr.getFloat(R.styleable.FloatingActionMenu_menuRadialSweepAngle, 90f);
+        radialRadius = attr.getDimensionPixelSize(R.styleable.FloatingActionMenu_menuRadialRadius,
+                0);
+        gridSpan = attr.getInt(R.styleable.FloatingActionMenu_menuGridSpan, 2);
+        gridOrientation = attr.getInt(R.styleable.FloatingActionMenu_menuGridOrientation,
+                FloatingActionMenu.GRID_ROWS);
+    }
+
+    /**
+     * Gets the MenuSpec for the style in the theme of the given context. The attributes are only
+     * resolved the first time a theme and style pair is requested, after that the cached MenuSpec
+     * is returned.
+     *
+     * @param context the context whose theme is used to resolve the style
+     * @param styleRes the style that holds the Floating Action Menu attributes
+     */
+    @NonNull
+    public static MenuSpec obtain(@NonNull Context context, @StyleRes int styleRes) {
+        Resources.Theme theme = context.getTheme();
+        synchronized (sCache) {
+            SparseArray<MenuSpec> specs = sCache.get(theme);
+            if (specs == null) {
+                specs = new SparseArray<>();
+                sCache.put(theme, specs);
+            }
+
+            MenuSpec spec = specs.get(styleRes);
+            if (spec == null) {
+                spec = create(context, null, 0, styleRes);
+                specs.put(styleRes, spec);
+            }
+            return spec;
+        }
+    }
+
+    /**
+     * Resolves a MenuSpec from xml attributes. The result is not cached since the attributes are
+     * unique to the view that is being inflated.
+     */
+    static MenuSpec create(Context context, AttributeSet attrs, int defStyleAttr,
+                           @StyleRes int defStyleRes) {
+        TypedArray attr = context.obtainStyledAttributes(attrs,
+                R.styleable.FloatingActionMenu, defStyleAttr, defStyleRes);
+        try {
+            return new MenuSpec(context.getResources(), attr);
+        } finally {
+            attr.recycle();
+        }
+    }
+
+    /**
+     * Clears all the cached MenuSpecs. Should be called when the configuration has changed in a
+     * way that the theme is kept but its resources resolve differently.
+     */
+    public static void clearCache() {
+        synchronized (sCache) {
+            sCache.clear();
+        }
+    }
+
+    /**
+     * Gets the direction that the menu expands to
+     */
+    @FloatingActionMenu.MenuDirection
+    public int getExpandDirection() {
+        return expandDirection;
+    }
+
+    /**
+     * Gets the side of the menu that the labels appear on
+     */
+    @FloatingActionMenu.LabelsPosition
+    public int getLabelsPosition() {
+        return labelsPosition;
+    }
+
+    /**
+     * Gets the style that is applied to the labels, 0 if there is none
+     */
+    @StyleRes
+    public int getLabelsStyle() {
+        return labelsStyle;
+    }
+
+    /**
+     * Gets the type of label that is used, 0 if there is none
+     */
+    public int getLabelsType() {
+        return labelsType;
+    }
+
+    /**
+     * Gets the margin between each Floating Action Button in pixels
+     */
+    public int getButtonMargin() {
+        return buttonMargin;
+    }
+
+    /**
+     * Gets the padding of the menu from the edge of the view in pixels
+     */
+    public int getContentPadding() {
+        return contentPadding;
+    }
+
+    /**
+     * Gets the color that the background dims to when the menu is open
+     */
+    public int getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    /**
+     * Gets the duration of each item animation in milliseconds
+     */
+    public long getAnimationDuration() {
+        return animationDuration;
+    }
+
+    /**
+     * Gets the delay between each item animation in milliseconds
+     */
+    public long getAnimationDelayPerItem() {
+        return animationDelayPerItem;
+    }
+
+    /**
+     * Gets the longest time opening or closing the menu may take in milliseconds, 0 if there is
+     * no limit
+     */
+    public long getMaxAnimationTime() {
+        return maxAnimationTime;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.StyleRes;
+import android.util.SparseArray;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+
+import java.util.ArrayList;
+
+/**
+ * A size bounded pool of {@link FloatingActionButton}s and {@link LabelView}s that can be shared
+ * by multiple {@link FloatingActionMenu}s. Buttons are pooled by their size and labels by their
+ * {@link LabelView.Type}. A pooled view is only handed out again for the same Context, and labels
+ * for the same style, so a view never carries the theme of one menu into another. Views hold on to
+ * the Context they were created with, so a pool should not outlive the Activity of the menus that
+ * use it.
+ *
+ * @see FloatingActionMenu#setViewPool(MenuViewPool)
+ */
+public class MenuViewPool {
+
+    public static final int DEFAULT_MAX_POOLED = 8;
+
+    private final int mMaxPooled;
+    private final SparseArray<ArrayList<FloatingActionButton>> mButtons = new SparseArray<>();
+    private final SparseArray<ArrayList<LabelView>> mLabels = new SparseArray<>();
+
+    public MenuViewPool() {
+        this(DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * @param maxPooled the maximum number of views that are kept for each button size and each
+     *                  label type
+     */
+    public MenuViewPool(int maxPooled) {
+        mMaxPooled = maxPooled;
+    }
+
+    /**
+     * Gets a pooled Floating Action Button of the size, or creates one if there is none
+     *
+     * @param size {@link FloatingActionButton#SIZE_NORMAL} or {@link FloatingActionButton#SIZE_MINI}
+     */
+    @NonNull
+    public FloatingActionButton acquireButton(@NonNull Context context, int size) {
+        ArrayList<FloatingActionButton> buttons = mButtons.get(size);
+        if (buttons != null) {
+            for (int i = buttons.size() - 1; i >= 0; i--) {
+                if (buttons.get(i).getContext() == context) {
+                    return buttons.remove(i);
+                }
+            }
+        }
+
+        int layout = size == FloatingActionButton.SIZE_MINI
+                ? R.layout.fab_pool_button_mini
+                : R.layout.fab_pool_button_normal;
+        return (FloatingActionButton) LayoutInflater.from(context).inflate(layout, null, false);
+    }
+
+    /**
+     * Resets the Floating Action Button and returns it to the pool. The button must already be
+     * removed from its parent.
+     *
+     * @return true if the button was pooled, false if it still has a parent or the pool is full
+     */
+    public boolean releaseButton(@NonNull FloatingActionButton button) {
+        if (button.getParent() != null) {
+            return false;
+        }
+
+        int size = button.getButtonSize();
+        ArrayList<FloatingActionButton> buttons = mButtons.get(size);
+        if (buttons == null) {
+            buttons = new ArrayList<>(mMaxPooled);
+            mButtons.put(size, buttons);
+        }
+        if (buttons.size() >= mMaxPooled || buttons.contains(button)) {
+            return false;
+        }
+
+        button.reset();
+        buttons.add(button);
+        return true;
+    }
+
+    /**
+     * Gets a pooled LabelView of the type that was created with the context, or creates one if
+     * there is none
+     */
+    @NonNull
+    public LabelView acquireLabel(@NonNull Context context, @NonNull LabelView.Type type) {
+        LabelView label = findLabel(context, type, null);
+        return label != null ? label : createLabel(context, type);
+    }
+
+    /**
+     * Gets a pooled LabelView of the type that was created for the context and the style, or
+     * creates one with the style applied as the theme over the context
+     *
+     * @param style the theme style of the label, 0 for none
+     */
+    @NonNull
+    public LabelView acquireLabel(@NonNull Context context, @NonNull LabelView.Type type,
+                                  @StyleRes int style) {
+        LabelView label = findLabel(context, type, style);
+        if (label == null) {
+            label = createLabel(new ContextThemeWrapper(context, style), type);
+            label.setTag(R.id.fab_pool_style, style);
+        }
+        return label;
+    }
+
+    /**
+     * Takes the label out of the pool that matches the context and the style
+     *
+     * @param style the style of a label from {@link #acquireLabel(Context, LabelView.Type, int)},
+     *              null for a label that was created with the context itself
+     */
+    private LabelView findLabel(Context context, LabelView.Type type, Integer style) {
+        ArrayList<LabelView> labels = mLabels.get(type.ordinal());
+        if (labels == null) {
+            return null;
+        }
+        for (int i = labels.size() - 1; i >= 0; i--) {
+            LabelView label = labels.get(i);
+            Object labelStyle = label.getTag(R.id.fab_pool_style);
+            Context labelContext = labelStyle != null
+                    ? ((ContextThemeWrapper) label.getContext()).getBaseContext()
+                    : label.getContext();
+            if (labelContext == context
+                    && (style == null ? labelStyle == null : style.equals(labelStyle))) {
+                return labels.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private static LabelView createLabel(Context context, LabelView.Type type) {
+        LabelView label = new LabelView(context);
+        if (label.getLabelType() != type) {
+            label.setLabelType(type);
+        }
+        return label;
+    }
+
+    /**
+     * Resets the LabelView and returns it to the pool. The label must already be removed from its
+     * parent.
+     *
+     * @return true if the label was pooled, false if it still has a parent or the pool is full
+     */
+    public boolean releaseLabel(@NonNull LabelView label) {
+        if (label.getParent() != null) {
+            return false;
+        }
+
+        int type = label.getLabelType().ordinal();
+        ArrayList<LabelView> labels = mLabels.get(type);
+        if (labels == null) {
+            labels = new ArrayList<>(mMaxPooled);
+            mLabels.put(type, labels);
+        }
+        if (labels.size() >= mMaxPooled || labels.contains(label)) {
+            return false;
+        }
+
+        label.reset();
+        labels.add(label);
+        return true;
+    }
+
+    /**
+     * Removes all the pooled views
+     */
+    public void clear() {
+        mButtons.clear();
+        mLabels.clear();
+    }
+}
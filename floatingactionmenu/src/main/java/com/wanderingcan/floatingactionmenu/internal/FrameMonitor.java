@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+/**
+ * Counts the frames of an animation and how many frames were dropped between them. Runs a task on
+ * every frame of its {@link Scheduler}, on the main scheduler that is every Choreographer frame.
+ * The gaps between the frame times are measured against the refresh rate of the display.
+ */
+public class FrameMonitor implements Runnable {
+
+    /**
+     * The refresh rate that is used until the display gives one
+     */
+    static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private static final long NANOS_PER_SECOND = 1000000000;
+
+    private Scheduler mScheduler;
+    private boolean mRunning;
+    private long mLastFrameTime;
+    private int mFrameCount;
+    private int mDroppedFrames;
+    private long mFrameIntervalNanos = (long) (NANOS_PER_SECOND / DEFAULT_REFRESH_RATE);
+
+    public FrameMonitor(Scheduler scheduler) {
+        mScheduler = scheduler;
+    }
+
+    /**
+     * Sets the scheduler that the frames are counted on. A running monitor keeps counting on the
+     * new scheduler.
+     */
+    public void setScheduler(Scheduler scheduler) {
+        if (scheduler == mScheduler) {
+            return;
+        }
+        mScheduler.cancel(this);
+        mScheduler = scheduler;
+        if (mRunning) {
+            mLastFrameTime = -1;
+            mScheduler.postOnFrame(this);
+        }
+    }
+
+    /**
+     * Sets the refresh rate of the display the frames are drawn on, the gaps between frames are
+     * measured against it. Rates that are not positive are ignored.
+     */
+    public void setRefreshRate(float refreshRate) {
+        if (refreshRate > 0) {
+            mFrameIntervalNanos = (long) (NANOS_PER_SECOND / refreshRate);
+        }
+    }
+
+    /**
+     * Starts counting from zero
+     */
+    public void start() {
+        mFrameCount = 0;
+        mDroppedFrames = 0;
+        mLastFrameTime = -1;
+        if (!mRunning) {
+            mRunning = true;
+            mScheduler.postOnFrame(this);
+        }
+    }
+
+    /**
+     * Stops counting, the counts are kept until the next start
+     */
+    public void stop() {
+        mRunning = false;
+        mScheduler.cancel(this);
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Gets the number of frames counted, dropped frames included
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public int getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    @Override
+    public void run() {
+        long now = mScheduler.frameTimeNanos();
+        if (mLastFrameTime >= 0) {
+            //A gap of one and a half frames or more means frames were skipped
+            long interval = now - mLastFrameTime;
+            long frames = Math.max(1,
+                    (interval + mFrameIntervalNanos / 2) / mFrameIntervalNanos);
+            mFrameCount += frames;
+            mDroppedFrames += frames - 1;
+        }
+        mLastFrameTime = now;
+        mScheduler.postOnFrame(this);
+    }
+}
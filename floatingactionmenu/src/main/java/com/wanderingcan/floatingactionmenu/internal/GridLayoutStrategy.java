@@ -0,0 +1,322 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import com.wanderingcan.floatingactionmenu.FloatingActionMenu;
+import com.wanderingcan.floatingactionmenu.MenuLayoutStrategy;
+
+/**
+ * Wraps the items into a grid next to the main button. With {@link FloatingActionMenu#GRID_ROWS}
+ * the items fill rows of a fixed number of columns above the main button, the first column is
+ * lined up with the main button and the other columns grow towards the side of the labels. With
+ * {@link FloatingActionMenu#GRID_COLUMNS} the items fill columns of a fixed number of rows beside
+ * the main button on the side of the labels, the first row is lined up with the main button and
+ * the other rows grow upwards. Every column is as wide as its widest item and label, and every row
+ * as tall as its tallest item. Items open along the diagonals of the grid, starting from the cell
+ * next to the main button.
+ */
+public class GridLayoutStrategy implements MenuLayoutStrategy {
+
+    private int mSpan;
+    private int mOrientation;
+
+    private int[] mColumnItemWidths = new int[0];
+    private int[] mColumnWidths = new int[0];
+    private int[] mRowHeights = new int[0];
+
+    public GridLayoutStrategy(int span) {
+        this(span, FloatingActionMenu.GRID_ROWS);
+    }
+
+    public GridLayoutStrategy(int span, @FloatingActionMenu.GridOrientation int orientation) {
+        setSpan(span);
+        mOrientation = orientation;
+    }
+
+    /**
+     * Sets the number of columns of the grid, or the number of rows when the items fill columns
+     */
+    public void setSpan(int span) {
+        mSpan = Math.max(1, span);
+    }
+
+    public int getSpan() {
+        return mSpan;
+    }
+
+    /**
+     * Sets if the items fill rows above the main button or columns beside it
+     */
+    public void setOrientation(@FloatingActionMenu.GridOrientation int orientation) {
+        mOrientation = orientation;
+    }
+
+    @FloatingActionMenu.GridOrientation
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * Two grid strategies are equal when they have the same span and orientation
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        GridLayoutStrategy strategy = (GridLayoutStrategy) o;
+        return mSpan == strategy.mSpan && mOrientation == strategy.mOrientation;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mSpan + mOrientation;
+    }
+
+    @Override
+    public void measure(int count, int[] sizes, Params params, int[] outSize) {
+        computeCells(count, sizes, params);
+        int columns = columnCount(count);
+        int rows = rowCount(count);
+
+        int width = 0;
+        for (int column = 0; column < columns; column++) {
+            width += mColumnWidths[column];
+        }
+        width += params.buttonMargin * Math.max(0, columns - 1);
+
+        int height = 0;
+        for (int row = 0; row < rows; row++) {
+            height += mRowHeights[row];
+        }
+        height += params.buttonMargin * Math.max(0, rows - 1);
+
+        if (fillsColumns()) {
+            //The columns start beside the main button, the first row is as tall as it
+            width += sizes[SIZE_WIDTH] + (columns > 0 ? params.buttonMargin : 0);
+            height = Math.max(height, sizes[SIZE_HEIGHT]);
+        } else {
+            //The rows start above the main button, the first column is as wide as it
+            width = Math.max(width, sizes[SIZE_WIDTH]);
+            height += sizes[SIZE_HEIGHT] + (rows > 0 ? params.buttonMargin : 0);
+        }
+
+        outSize[0] = width + params.contentPadding + params.paddingLeft + params.paddingRight;
+        outSize[1] = height + params.contentPadding + params.paddingTop + params.paddingBottom;
+    }
+
+    @Override
+    public void layout(int count, int[] sizes, Params params, int width, int height,
+                       int[] outFrames) {
+        computeCells(count, sizes, params);
+        boolean labelsLeft = params.labelsPosition == FloatingActionMenu.LABELS_LEFT;
+        boolean fillsColumns = fillsColumns();
+        int inset = params.contentPadding / 2;
+        int margin = params.buttonMargin;
+        int mainWidth = sizes[SIZE_WIDTH];
+        int mainHeight = sizes[SIZE_HEIGHT];
+        int bottom = height - params.paddingBottom - inset;
+
+        int mainLeft;
+        int mainTop;
+        int firstColumnEdge;
+        int firstRowBottom;
+        if (fillsColumns) {
+            //The main button sits on the first row, away from the side of the labels
+            int firstRowHeight = count > 1 ? mRowHeights[0] : mainHeight;
+            mainLeft = labelsLeft
+                    ? width - params.paddingRight - inset - mainWidth
+                    : params.paddingLeft + inset;
+            mainTop = bottom - firstRowHeight + (firstRowHeight - mainHeight) / 2;
+            firstColumnEdge = labelsLeft ? mainLeft - margin : mainLeft + mainWidth + margin;
+            firstRowBottom = bottom;
+        } else {
+            //The first column is centered on the main button
+            int firstColumnItemWidth = count > 1 ? mColumnItemWidths[0] : mainWidth;
+            int centerX = labelsLeft
+                    ? width - params.paddingRight - inset - firstColumnItemWidth / 2
+                    : params.paddingLeft + inset + firstColumnItemWidth / 2;
+            mainLeft = centerX - mainWidth / 2;
+            mainTop = bottom - mainHeight;
+            firstColumnEdge = centerX + (labelsLeft ? 1 : -1) * firstColumnItemWidth / 2;
+            firstRowBottom = mainTop - margin;
+        }
+
+        outFrames[FRAME_LEFT] = mainLeft;
+        outFrames[FRAME_TOP] = mainTop;
+        outFrames[FRAME_LABEL_LEFT] = NO_POSITION;
+        outFrames[FRAME_LABEL_TOP] = NO_POSITION;
+        outFrames[FRAME_TOUCH_LEFT] = 0;
+        outFrames[FRAME_TOUCH_TOP] = 0;
+        outFrames[FRAME_TOUCH_RIGHT] = 0;
+        outFrames[FRAME_TOUCH_BOTTOM] = 0;
+        outFrames[FRAME_STAGGER] = 0;
+
+        //The edge of each column that is nearest to the main button, and the bottom of each row
+        int columnEdge = firstColumnEdge;
+        int rowBottom = firstRowBottom;
+        int previousRow = 0;
+        int previousColumn = 0;
+
+        for (int i = 1; i < count; i++) {
+            int index = i - 1;
+            int row = rowOf(index);
+            int column = columnOf(index);
+
+            if (row != previousRow) {
+                rowBottom = row == 0 ? firstRowBottom : rowBottom - mRowHeights[row - 1] - margin;
+            }
+            if (column != previousColumn) {
+                columnEdge = column == 0 ? firstColumnEdge : labelsLeft
+                        ? columnEdge - mColumnWidths[column - 1] - margin
+                        : columnEdge + mColumnWidths[column - 1] + margin;
+            }
+            previousRow = row;
+            previousColumn = column;
+
+            layoutItem(i, sizes, params, labelsLeft, columnEdge, column, rowBottom, row,
+                    outFrames);
+        }
+    }
+
+    /**
+     * Places an item at the near side of its cell with its label beyond it
+     *
+     * @param columnEdge the edge of the column that is nearest to the main button
+     * @param rowBottom the bottom of the row
+     */
+    private void layoutItem(int i, int[] sizes, Params params, boolean labelsLeft, int columnEdge,
+                            int column, int rowBottom, int row, int[] outFrames) {
+        int size = i * SIZE_STRIDE;
+        int frame = i * FRAME_STRIDE;
+        int childWidth = sizes[size + SIZE_WIDTH];
+        int childHeight = sizes[size + SIZE_HEIGHT];
+        int labelWidth = sizes[size + SIZE_LABEL_WIDTH];
+        int labelHeight = sizes[size + SIZE_LABEL_HEIGHT];
+        int itemWidth = mColumnItemWidths[column];
+        int rowHeight = mRowHeights[row];
+        int halfMargin = params.buttonMargin / 2;
+
+        //The item is centered in the part of the column that is as wide as its widest item
+        int itemFar = labelsLeft ? columnEdge - itemWidth : columnEdge + itemWidth;
+        int childX = Math.min(columnEdge, itemFar) + (itemWidth - childWidth) / 2;
+        int childY = rowBottom - rowHeight + (rowHeight - childHeight) / 2;
+        outFrames[frame + FRAME_LEFT] = childX;
+        outFrames[frame + FRAME_TOP] = childY;
+        outFrames[frame + FRAME_STAGGER] = row + column;
+
+        int cellFar = labelsLeft
+                ? columnEdge - mColumnWidths[column]
+                : columnEdge + mColumnWidths[column];
+        if (labelWidth > 0) {
+            int labelsXNearButton = labelsLeft
+                    ? itemFar - params.labelsMargin
+                    : itemFar + params.labelsMargin;
+            outFrames[frame + FRAME_LABEL_LEFT] = labelsLeft
+                    ? labelsXNearButton - labelWidth
+                    : labelsXNearButton;
+            outFrames[frame + FRAME_LABEL_TOP] = childY + (childHeight - labelHeight) / 2;
+        } else {
+            outFrames[frame + FRAME_LABEL_LEFT] = NO_POSITION;
+            outFrames[frame + FRAME_LABEL_TOP] = NO_POSITION;
+        }
+
+        outFrames[frame + FRAME_TOUCH_LEFT] = Math.min(columnEdge, cellFar) - halfMargin;
+        outFrames[frame + FRAME_TOUCH_TOP] = rowBottom - rowHeight - halfMargin;
+        outFrames[frame + FRAME_TOUCH_RIGHT] = Math.max(columnEdge, cellFar) + halfMargin;
+        outFrames[frame + FRAME_TOUCH_BOTTOM] = rowBottom + halfMargin;
+    }
+
+    /**
+     * Works out the widths of the columns and the heights of the rows in a single pass over the
+     * items. The cells that line up with the main button are at least as big as it.
+     */
+    private void computeCells(int count, int[] sizes, Params params) {
+        int columns = columnCount(count);
+        int rows = rowCount(count);
+        if (mColumnWidths.length < columns) {
+            mColumnItemWidths = new int[columns];
+            mColumnWidths = new int[columns];
+        }
+        if (mRowHeights.length < rows) {
+            mRowHeights = new int[rows];
+        }
+        for (int column = 0; column < columns; column++) {
+            mColumnItemWidths[column] = 0;
+            mColumnWidths[column] = 0;
+        }
+        for (int row = 0; row < rows; row++) {
+            mRowHeights[row] = 0;
+        }
+
+        boolean fillsColumns = fillsColumns();
+        for (int i = 1; i < count; i++) {
+            int index = i - 1;
+            int row = rowOf(index);
+            int column = columnOf(index);
+            int size = i * SIZE_STRIDE;
+            int labelWidth = sizes[size + SIZE_LABEL_WIDTH];
+
+            int itemWidth = sizes[size + SIZE_WIDTH];
+            if (column == 0 && !fillsColumns) {
+                itemWidth = Math.max(itemWidth, sizes[SIZE_WIDTH]);
+            }
+            int itemHeight = Math.max(sizes[size + SIZE_HEIGHT], sizes[size + SIZE_LABEL_HEIGHT]);
+            if (row == 0 && fillsColumns) {
+                itemHeight = Math.max(itemHeight, sizes[SIZE_HEIGHT]);
+            }
+            mColumnItemWidths[column] = Math.max(mColumnItemWidths[column], itemWidth);
+            //Holds the widest label until every item of the column is known
+            mColumnWidths[column] = Math.max(mColumnWidths[column],
+                    labelWidth > 0 ? labelWidth + params.labelsMargin : 0);
+            mRowHeights[row] = Math.max(mRowHeights[row], itemHeight);
+        }
+        //Labels start beyond the widest item of their column
+        for (int column = 0; column < columns; column++) {
+            mColumnWidths[column] += mColumnItemWidths[column];
+        }
+    }
+
+    private boolean fillsColumns() {
+        return mOrientation == FloatingActionMenu.GRID_COLUMNS;
+    }
+
+    private int rowOf(int index) {
+        return fillsColumns() ? index % mSpan : index / mSpan;
+    }
+
+    private int columnOf(int index) {
+        return fillsColumns() ? index / mSpan : index % mSpan;
+    }
+
+    /**
+     * Gets the number of columns that hold items
+     */
+    private int columnCount(int count) {
+        int items = count - 1;
+        return fillsColumns() ? (items + mSpan - 1) / mSpan : Math.min(mSpan, items);
+    }
+
+    /**
+     * Gets the number of rows that hold items
+     */
+    private int rowCount(int count) {
+        int items = count - 1;
+        return fillsColumns() ? Math.min(mSpan, items) : (items + mSpan - 1) / mSpan;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link Scheduler} that runs its tasks on a {@link Handler}. Frame tasks of the main thread run
+ * on the {@link Choreographer} from API 16, older versions and other threads fall back to a
+ * delay of {@link #FRAME_DELAY} milliseconds.
+ * <p>
+ * All the frame tasks of a scheduler run from a single frame callback, and they all see the same
+ * time from {@link #uptimeMillis()}. The main scheduler is shared by every menu, so menus that
+ * animate together are ticked together.
+ */
+public class HandlerScheduler implements Scheduler {
+
+    static final long FRAME_DELAY = 10;
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private static HandlerScheduler sMainScheduler;
+
+    private final Handler mHandler;
+
+    private final ArrayList<Runnable> mFrameTasks = new ArrayList<>();
+    private Runnable[] mRunningFrameTasks = new Runnable[0];
+    private Object mFrameCallback;
+    private boolean mInFrame;
+    private long mFrameTimeNanos;
+
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            runFrame(SystemClock.uptimeMillis() * NANOS_PER_MILLI);
+        }
+    };
+
+    /**
+     * Gets the scheduler of the main thread that is shared by every menu, button and label
+     */
+    public static HandlerScheduler getMainScheduler() {
+        if (sMainScheduler == null) {
+            sMainScheduler = new HandlerScheduler();
+        }
+        return sMainScheduler;
+    }
+
+    public HandlerScheduler() {
+        this(new Handler(Looper.getMainLooper()));
+    }
+
+    public HandlerScheduler(Handler handler) {
+        mHandler = handler;
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return mInFrame ? mFrameTimeNanos / NANOS_PER_MILLI : SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public long frameTimeNanos() {
+        return mInFrame ? mFrameTimeNanos : SystemClock.uptimeMillis() * NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        mHandler.postDelayed(task, delayMillis);
+    }
+
+    @Override
+    public void postOnFrame(Runnable task) {
+        mFrameTasks.add(task);
+        if (mFrameTasks.size() == 1) {
+            scheduleFrame();
+        }
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        mHandler.removeCallbacks(task);
+        for (int i = mFrameTasks.size() - 1; i >= 0; i--) {
+            if (mFrameTasks.get(i) == task) {
+                mFrameTasks.remove(i);
+            }
+        }
+        //The task may be cancelled by another task of the frame that is running
+        for (int i = 0; i < mRunningFrameTasks.length; i++) {
+            if (mRunningFrameTasks[i] == task) {
+                mRunningFrameTasks[i] = null;
+            }
+        }
+    }
+
+    private void scheduleFrame() {
+        if (Build.VERSION.SDK_INT >= 16 && mHandler.getLooper() == Looper.getMainLooper()) {
+            if (mFrameCallback == null) {
+                mFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        runFrame(frameTimeNanos);
+                    }
+                };
+            }
+            Choreographer.getInstance()
+                    .postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        } else {
+            mHandler.postDelayed(mFrameRunnable, FRAME_DELAY);
+        }
+    }
+
+    /**
+     * Runs the tasks that were posted before the frame started, tasks they post run on the next
+     * frame. The tasks see the frame time of the Choreographer as the current time, it is on the
+     * same clock as {@link SystemClock#uptimeMillis()}.
+     */
+    private void runFrame(long frameTimeNanos) {
+        int count = mFrameTasks.size();
+        if (count == 0) {
+            return;
+        }
+        if (mRunningFrameTasks.length < count) {
+            mRunningFrameTasks = new Runnable[count];
+        }
+        mFrameTasks.toArray(mRunningFrameTasks);
+        mFrameTasks.clear();
+        mFrameTimeNanos = frameTimeNanos;
+        mInFrame = true;
+        try {
+            for (int i = 0; i < count; i++) {
+                Runnable task = mRunningFrameTasks[i];
+                mRunningFrameTasks[i] = null;
+                if (task != null) {
+                    task.run();
+                }
+            }
+        } finally {
+            mInFrame = false;
+        }
+    }
+}
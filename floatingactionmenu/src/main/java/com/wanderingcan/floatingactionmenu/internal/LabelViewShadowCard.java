@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+/**
+ * The TextView within a card Implementation of the LabelView for platforms before L. Draws the
+ * card with a {@link ShadowCardDrawable} instead of a CardView, so the shadows are shared between
+ * all the labels.
+ */
+public class LabelViewShadowCard extends LabelViewImpl {
+
+    private static final double COS_45 = Math.cos(Math.toRadians(45));
+
+    private final FrameLayout mCardLayout;
+    private final ShadowCardDrawable mCard;
+    private final Rect mContentPadding = new Rect();
+    private final Rect mShadowPadding = new Rect();
+    private boolean mUseCompatPadding;
+    private boolean mPreventCornerOverlap = true;
+
+    public LabelViewShadowCard(TextView textView, FrameLayout cardLayout, ShadowCardDrawable card){
+        mTextView = textView;
+        mCardLayout = cardLayout;
+        mCard = card;
+        setBackgroundDrawable(card);
+        updatePadding();
+    }
+
+    @Override
+    public void setBackgroundColor(int color) {
+        mCard.setColor(color);
+    }
+
+    @Override
+    public void setBackground(Drawable background) {
+        setBackgroundDrawable(background);
+    }
+
+    @Override
+    public void setBackgroundResource(int resId) {
+        mCardLayout.setBackgroundResource(resId);
+        updatePadding();
+    }
+
+    @Override
+    public void setRadius(float radius) {
+        mCard.setRadius(radius);
+        updatePadding();
+    }
+
+    @Override
+    public float getRadius() {
+        return mCard.getRadius();
+    }
+
+    @Override
+    public void setElevation(float elevation) {
+        float maxElevation = mCard.getMaxElevation();
+        mCard.setElevation(elevation);
+        if (mCard.getMaxElevation() != maxElevation) {
+            updatePadding();
+        }
+    }
+
+    @Override
+    public float getElevation() {
+        return mCard.getElevation();
+    }
+
+    @Override
+    public void setMaxElevation(float maxElevation) {
+        mCard.setMaxElevation(maxElevation);
+        updatePadding();
+    }
+
+    @Override
+    public float getMaxElevation() {
+        return mCard.getMaxElevation();
+    }
+
+    @Override
+    public void setContentPadding(int left, int top, int right, int bottom) {
+        mContentPadding.set(left, top, right, bottom);
+        updatePadding();
+    }
+
+    @Override
+    public void setUseCompatPadding(boolean useCompatPadding) {
+        //Before L the space for the shadows is always added, only the flag is kept
+        mUseCompatPadding = useCompatPadding;
+    }
+
+    @Override
+    public boolean getUseCompatPadding() {
+        return mUseCompatPadding;
+    }
+
+    @Override
+    public void setPreventCornerOverlap(boolean preventCornerOverlap) {
+        mPreventCornerOverlap = preventCornerOverlap;
+        updatePadding();
+    }
+
+    @Override
+    public boolean getPreventCornerOverlap() {
+        return mPreventCornerOverlap;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void setBackgroundDrawable(Drawable background) {
+        if (Build.VERSION.SDK_INT >= 16){
+            mCardLayout.setBackground(background);
+        }else {
+            mCardLayout.setBackgroundDrawable(background);
+        }
+        updatePadding();
+    }
+
+    /**
+     * Pads the text by the content padding and the space for the shadow. Setting a background
+     * resets the padding of the layout, so it is worked out again after every change.
+     */
+    private void updatePadding() {
+        if (mCardLayout.getBackground() == mCard) {
+            mCard.getShadowPadding(mShadowPadding);
+        } else {
+            mShadowPadding.setEmpty();
+        }
+        int corner = mPreventCornerOverlap
+                ? (int) Math.ceil((1 - COS_45) * mCard.getRadius())
+                : 0;
+        mCardLayout.setPadding(mShadowPadding.left + mContentPadding.left + corner,
+                mShadowPadding.top + mContentPadding.top + corner,
+                mShadowPadding.right + mContentPadding.right + corner,
+                mShadowPadding.bottom + mContentPadding.bottom + corner);
+    }
+}
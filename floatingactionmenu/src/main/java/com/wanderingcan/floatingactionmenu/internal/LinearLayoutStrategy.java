@@ -0,0 +1,236 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import com.wanderingcan.floatingactionmenu.FloatingActionMenu;
+import com.wanderingcan.floatingactionmenu.MenuLayoutStrategy;
+
+/**
+ * Stacks the items in a line going up, down, left or right from the main button. Labels are placed
+ * next to the items when the menu expands up or down.
+ */
+public class LinearLayoutStrategy implements MenuLayoutStrategy {
+
+    /**
+     * The room added along the main axis for item animations that translate by a part of the menu
+     * size and overshoot, such as fab_slide_up, in percent of the size of the items
+     */
+    private static final int OVERSHOOT_PERCENT = 10;
+
+    /**
+     * The linear strategy has no settings of its own, so every instance lays out the same way
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public void measure(int count, int[] sizes, Params params, int[] outSize) {
+        boolean horizontal = isHorizontal(params);
+        int width = 0;
+        int height = 0;
+        int maxWidth = 0;
+        int maxHeight = 0;
+        int maxLabelWidth = 0;
+
+        for (int i = 0; i < count; i++) {
+            int offset = i * SIZE_STRIDE;
+            if (horizontal) {
+                width += sizes[offset + SIZE_WIDTH];
+                maxHeight = Math.max(maxHeight, sizes[offset + SIZE_HEIGHT]);
+            } else {
+                maxWidth = Math.max(maxWidth, sizes[offset + SIZE_WIDTH]);
+                height += sizes[offset + SIZE_HEIGHT];
+                maxLabelWidth = Math.max(maxLabelWidth, sizes[offset + SIZE_LABEL_WIDTH]);
+            }
+        }
+
+        //The content padding leaves half of itself on each side for the items to overshoot into
+        //across the main axis. Along it the items can overshoot by a part of the whole menu, so
+        //the far end gets room that grows with the items.
+        if (horizontal) {
+            width += params.buttonMargin * (count - 1);
+            width += width * OVERSHOOT_PERCENT / 100 + params.contentPadding;
+            height = maxHeight + params.contentPadding;
+        } else {
+            height += params.buttonMargin * (count - 1);
+            height += height * OVERSHOOT_PERCENT / 100 + params.contentPadding;
+            width = maxWidth + (maxLabelWidth > 0 ? maxLabelWidth + params.labelsMargin : 0)
+                    + params.contentPadding;
+        }
+
+        outSize[0] = width + params.paddingLeft + params.paddingRight;
+        outSize[1] = height + params.paddingTop + params.paddingBottom;
+    }
+
+    @Override
+    public void layout(int count, int[] sizes, Params params, int width, int height,
+                       int[] outFrames) {
+        if (isHorizontal(params)) {
+            layoutHorizontal(count, sizes, params, width, height, outFrames);
+        } else {
+            layoutVertical(count, sizes, params, width, height, outFrames);
+        }
+    }
+
+    private static void layoutVertical(int count, int[] sizes, Params params, int width,
+                                       int height, int[] outFrames) {
+        boolean expandUp = params.direction == FloatingActionMenu.UP;
+        boolean labelsLeft = params.labelsPosition == FloatingActionMenu.LABELS_LEFT;
+        int margin = params.buttonMargin;
+
+        int maxWidth = 0;
+        for (int i = 0; i < count; i++) {
+            maxWidth = Math.max(maxWidth, sizes[i * SIZE_STRIDE + SIZE_WIDTH]);
+        }
+
+        int mainWidth = sizes[SIZE_WIDTH];
+        int mainHeight = sizes[SIZE_HEIGHT];
+        int mainTop = expandUp ? height - mainHeight - params.paddingBottom : params.paddingTop;
+
+        // Ensure the main button is centered on the line where the buttons should be
+        int center = labelsLeft
+                ? width - maxWidth / 2 - params.paddingRight
+                : maxWidth / 2 + params.paddingLeft;
+        int mainLeft = center - mainWidth / 2;
+
+        int paddingHeight = expandUp ? params.contentPadding / 2 : -params.contentPadding / 2;
+        int paddingWidth = labelsLeft ? params.contentPadding / 2 : -params.contentPadding / 2;
+
+        outFrames[FRAME_LEFT] = mainLeft - paddingWidth;
+        outFrames[FRAME_TOP] = mainTop - paddingHeight;
+        outFrames[FRAME_LABEL_LEFT] = NO_POSITION;
+        outFrames[FRAME_LABEL_TOP] = NO_POSITION;
+        clearTouch(outFrames, 0);
+        outFrames[FRAME_STAGGER] = 0;
+
+        int labelsOffset = maxWidth / 2 + params.labelsMargin;
+        int labelsXNearButton = labelsLeft ? center - labelsOffset : center + labelsOffset;
+
+        int nextY = expandUp ? mainTop - margin : mainTop + mainHeight + margin;
+        nextY += expandUp ? params.scrollShift : -params.scrollShift;
+
+        for (int i = 1; i < count; i++) {
+            int size = i * SIZE_STRIDE;
+            int frame = i * FRAME_STRIDE;
+            int childWidth = sizes[size + SIZE_WIDTH];
+            int childHeight = sizes[size + SIZE_HEIGHT];
+            int labelWidth = sizes[size + SIZE_LABEL_WIDTH];
+            int labelHeight = sizes[size + SIZE_LABEL_HEIGHT];
+
+            int childX = center - childWidth / 2 - paddingWidth;
+            int childY = (expandUp ? nextY - childHeight : nextY) - paddingHeight;
+            outFrames[frame + FRAME_LEFT] = childX;
+            outFrames[frame + FRAME_TOP] = childY;
+            outFrames[frame + FRAME_STAGGER] = i - 1;
+
+            int touchLeft = childX;
+            int touchRight = childX + childWidth;
+            if (labelWidth > 0) {
+                int labelLeft = labelsLeft ? labelsXNearButton - labelWidth : labelsXNearButton;
+                outFrames[frame + FRAME_LABEL_LEFT] = labelLeft;
+                outFrames[frame + FRAME_LABEL_TOP] = childY + (childHeight - labelHeight) / 2;
+
+                touchLeft = Math.min(touchLeft, labelLeft);
+                touchRight = Math.max(touchRight, labelLeft + labelWidth);
+            } else {
+                outFrames[frame + FRAME_LABEL_LEFT] = NO_POSITION;
+                outFrames[frame + FRAME_LABEL_TOP] = NO_POSITION;
+            }
+
+            outFrames[frame + FRAME_TOUCH_LEFT] = touchLeft;
+            outFrames[frame + FRAME_TOUCH_TOP] = childY - margin / 2;
+            outFrames[frame + FRAME_TOUCH_RIGHT] = touchRight;
+            outFrames[frame + FRAME_TOUCH_BOTTOM] = childY + childHeight + margin / 2;
+
+            childY += paddingHeight;
+            nextY = expandUp ? childY - margin : childY + childHeight + margin;
+        }
+    }
+
+    private static void layoutHorizontal(int count, int[] sizes, Params params, int width,
+                                         int height, int[] outFrames) {
+        boolean expandLeft = params.direction == FloatingActionMenu.LEFT;
+        int margin = params.buttonMargin;
+
+        int maxHeight = 0;
+        for (int i = 0; i < count; i++) {
+            maxHeight = Math.max(maxHeight, sizes[i * SIZE_STRIDE + SIZE_HEIGHT]);
+        }
+
+        int mainWidth = sizes[SIZE_WIDTH];
+        int mainHeight = sizes[SIZE_HEIGHT];
+        int mainLeft = expandLeft ? width - mainWidth - params.paddingRight : params.paddingLeft;
+        // Ensure the main button is centered on the line where the buttons should be
+        int mainTop = height - maxHeight - params.paddingBottom + (maxHeight - mainHeight) / 2;
+
+        int paddingHeight = params.contentPadding / 2;
+        int paddingWidth = expandLeft ? params.contentPadding / 2 : -params.contentPadding / 2;
+
+        outFrames[FRAME_LEFT] = mainLeft - paddingWidth;
+        outFrames[FRAME_TOP] = mainTop - paddingHeight;
+        outFrames[FRAME_LABEL_LEFT] = NO_POSITION;
+        outFrames[FRAME_LABEL_TOP] = NO_POSITION;
+        clearTouch(outFrames, 0);
+        outFrames[FRAME_STAGGER] = 0;
+
+        int nextX = expandLeft ? mainLeft - margin : mainLeft + mainWidth + margin;
+        nextX += expandLeft ? params.scrollShift : -params.scrollShift;
+
+        for (int i = 1; i < count; i++) {
+            int size = i * SIZE_STRIDE;
+            int frame = i * FRAME_STRIDE;
+            int childWidth = sizes[size + SIZE_WIDTH];
+            int childHeight = sizes[size + SIZE_HEIGHT];
+
+            int childX = (expandLeft ? nextX - childWidth : nextX) - paddingWidth;
+            int childY = mainTop + (mainHeight - childHeight) / 2 - paddingHeight;
+            outFrames[frame + FRAME_LEFT] = childX;
+            outFrames[frame + FRAME_TOP] = childY;
+            outFrames[frame + FRAME_STAGGER] = i - 1;
+            outFrames[frame + FRAME_LABEL_LEFT] = NO_POSITION;
+            outFrames[frame + FRAME_LABEL_TOP] = NO_POSITION;
+
+            outFrames[frame + FRAME_TOUCH_LEFT] = childX - margin / 2;
+            outFrames[frame + FRAME_TOUCH_TOP] = childY;
+            outFrames[frame + FRAME_TOUCH_RIGHT] = childX + childWidth + margin / 2;
+            outFrames[frame + FRAME_TOUCH_BOTTOM] = childY + childHeight;
+
+            childX += paddingWidth;
+            nextX = expandLeft ? childX - margin : childX + childWidth + margin;
+        }
+    }
+
+    private static void clearTouch(int[] outFrames, int index) {
+        int frame = index * FRAME_STRIDE;
+        outFrames[frame + FRAME_TOUCH_LEFT] = 0;
+        outFrames[frame + FRAME_TOUCH_TOP] = 0;
+        outFrames[frame + FRAME_TOUCH_RIGHT] = 0;
+        outFrames[frame + FRAME_TOUCH_BOTTOM] = 0;
+    }
+
+    private static boolean isHorizontal(Params params) {
+        return params.direction == FloatingActionMenu.LEFT
+                || params.direction == FloatingActionMenu.RIGHT;
+    }
+}
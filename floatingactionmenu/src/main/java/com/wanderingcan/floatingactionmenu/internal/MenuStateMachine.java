@@ -0,0 +1,531 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+/**
+ * Decides when the menu opens, closes, hides and shows, and when each item animates. The state
+ * machine does not know about views, it tells a {@link Renderer} what to draw and runs its timing
+ * on a {@link Scheduler}, so it can be driven on a plain JVM.
+ * <p>
+ * Requests only set the state the menu should end up in. On the next frame the machine starts the
+ * one transition that gets it closer, so bursts of requests coalesce. At most two tasks are ever
+ * pending on the scheduler, that frame and the next step of the running transition.
+ */
+public class MenuStateMachine {
+
+    public static final int STATE_CLOSED = 0;
+    public static final int STATE_OPENING = 1;
+    public static final int STATE_OPEN = 2;
+    public static final int STATE_CLOSING = 3;
+    public static final int STATE_HIDING = 4;
+    public static final int STATE_HIDDEN = 5;
+
+    /**
+     * More than the number of transitions between any state and any target
+     */
+    private static final int MAX_SKIPPED_TRANSITIONS = 8;
+
+    /**
+     * Draws the state of the menu. The items are numbered from 0 in the order they were handed
+     * out by {@link #getItemCount()} when the transition started.
+     */
+    public interface Renderer {
+        /**
+         * Gets the number of items that take part in the transition that is starting
+         */
+        int getItemCount();
+
+        /**
+         * Gets the step of the open animation that the item starts on
+         */
+        int getStaggerStep(int item);
+
+        void onOpenStarted();
+        void onShowItem(int item);
+        void onOpenFinished();
+
+        /**
+         * Called when the items start closing, either to close the menu or to hide it
+         */
+        void onCloseStarted();
+        void onHideItem(int item);
+        void onCloseFinished();
+
+        void onHideMenuButton();
+        void onHidden();
+        void onShown();
+    }
+
+    /**
+     * Spreads the stagger steps over the time of a transition
+     */
+    public interface StaggerCurve {
+        /**
+         * Gets when a step starts
+         *
+         * @param fraction the step divided by the number of steps, from 0 up to but not including 1
+         * @return the start of the step as a fraction of the stagger time, from 0 to 1
+         */
+        float getOffset(float fraction);
+    }
+
+    private final Renderer mRenderer;
+    private Scheduler mScheduler;
+
+    private int mState = STATE_CLOSED;
+    private int mTarget = STATE_CLOSED;
+    private boolean mPumpPending;
+    private boolean mItemsOpen;
+    private boolean mMenuButtonHidden;
+
+    private long mDelayPerItem;
+    private long mDuration;
+    private long mMaxDuration;
+    private StaggerCurve mStaggerCurve;
+
+    private long mStartTime;
+    private long mFinishTime;
+    private int mItemCount;
+    private int mNextItem;
+    private int[] mSteps = new int[0];
+    private long[] mTimes = new long[0];
+    private int[] mOrder = new int[0];
+
+    private final Runnable mTick = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    private final Runnable mPump = new Runnable() {
+        @Override
+        public void run() {
+            mPumpPending = false;
+            pump();
+        }
+    };
+
+    public MenuStateMachine(Renderer renderer, Scheduler scheduler) {
+        mRenderer = renderer;
+        mScheduler = scheduler;
+    }
+
+    /**
+     * Moves the timing of the state machine to another scheduler. A running transition carries on
+     * from the same point on the new scheduler.
+     */
+    public void setScheduler(Scheduler scheduler) {
+        if (scheduler == mScheduler) {
+            return;
+        }
+        long elapsed = mScheduler.uptimeMillis() - mStartTime;
+        mScheduler.cancel(mTick);
+        mScheduler.cancel(mPump);
+        mScheduler = scheduler;
+        mStartTime = scheduler.uptimeMillis() - elapsed;
+        if (mPumpPending) {
+            scheduler.postOnFrame(mPump);
+        }
+        if (isAnimating()) {
+            tick();
+        }
+    }
+
+    /**
+     * Sets the timing of the next transitions
+     *
+     * @param delayPerItem the delay between each stagger step in milliseconds
+     * @param duration the duration of each item animation in milliseconds
+     */
+    public void setTiming(long delayPerItem, long duration) {
+        mDelayPerItem = delayPerItem;
+        mDuration = duration;
+    }
+
+    /**
+     * Sets the longest time a transition may take. The delay between the stagger steps is shortened
+     * so the last item finishes within it, the item animations themselves keep their duration.
+     *
+     * @param maxDuration the budget in milliseconds, 0 or less for no budget
+     */
+    public void setMaxDuration(long maxDuration) {
+        mMaxDuration = maxDuration;
+    }
+
+    /**
+     * Sets the curve the stagger steps are spread along, null spreads them evenly
+     */
+    public void setStaggerCurve(StaggerCurve curve) {
+        mStaggerCurve = curve;
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * Gets if the items of the menu are out, this stays true until the items have finished closing
+     */
+    public boolean isOpened() {
+        return mItemsOpen;
+    }
+
+    /**
+     * Gets if a transition is running
+     */
+    public boolean isAnimating() {
+        return mState == STATE_OPENING || mState == STATE_CLOSING || mState == STATE_HIDING;
+    }
+
+    /**
+     * Gets the state that the requests so far lead to, one of {@link #STATE_CLOSED},
+     * {@link #STATE_OPEN} or {@link #STATE_HIDDEN}
+     */
+    public int getTargetState() {
+        return mTarget;
+    }
+
+    /**
+     * Requests the menu to open. Ignored while the menu is hidden or about to be.
+     */
+    public void open() {
+        if (mTarget == STATE_CLOSED) {
+            request(STATE_OPEN);
+        }
+    }
+
+    /**
+     * Requests the menu to close. Ignored while the menu is hidden or about to be.
+     */
+    public void close() {
+        if (mTarget == STATE_OPEN) {
+            request(STATE_CLOSED);
+        }
+    }
+
+    public void toggle() {
+        if (mTarget == STATE_OPEN) {
+            request(STATE_CLOSED);
+        } else if (mTarget == STATE_CLOSED) {
+            request(STATE_OPEN);
+        }
+    }
+
+    /**
+     * Requests the items to close if they are out and the menu button to hide. Cuts a running
+     * open or close short.
+     */
+    public void hide() {
+        request(STATE_HIDDEN);
+    }
+
+    /**
+     * Requests the menu button to show again, cutting a running hide short
+     *
+     * @return false if the menu was not hidden or about to be
+     */
+    public boolean show() {
+        if (mTarget != STATE_HIDDEN) {
+            return false;
+        }
+        request(STATE_CLOSED);
+        return true;
+    }
+
+    /**
+     * Jumps to a settled state without animating, used when the state of the view is restored
+     */
+    public void restore(boolean opened) {
+        mScheduler.cancel(mTick);
+        mScheduler.cancel(mPump);
+        mPumpPending = false;
+        mState = opened ? STATE_OPEN : STATE_CLOSED;
+        mTarget = mState;
+        mItemsOpen = opened;
+        mMenuButtonHidden = false;
+    }
+
+    /**
+     * Runs the rest of the running transition and every transition up to the target right away,
+     * with no delays and no durations. The renderer is called just as it would be for animated
+     * transitions.
+     */
+    public void skipToTarget() {
+        long delayPerItem = mDelayPerItem;
+        long duration = mDuration;
+        mDelayPerItem = 0;
+        mDuration = 0;
+        try {
+            for (int i = 0; i < MAX_SKIPPED_TRANSITIONS && (isAnimating() || mState != mTarget);
+                 i++) {
+                if (isAnimating()) {
+                    //Moving the start back makes every remaining step due now
+                    mScheduler.cancel(mTick);
+                    mStartTime = mScheduler.uptimeMillis() - mFinishTime;
+                    tick();
+                } else {
+                    mScheduler.cancel(mPump);
+                    mPumpPending = false;
+                    pump();
+                }
+            }
+        } finally {
+            mDelayPerItem = delayPerItem;
+            mDuration = duration;
+        }
+    }
+
+    /**
+     * Sets the state the menu should end up in. Requests only move the target, the transitions
+     * towards it start on the next frame, so a burst of requests within a frame costs at most one
+     * transition.
+     */
+    private void request(int target) {
+        mTarget = target;
+        schedulePump();
+    }
+
+    private void schedulePump() {
+        if (!mPumpPending) {
+            mPumpPending = true;
+            mScheduler.postOnFrame(mPump);
+        }
+    }
+
+    /**
+     * Starts the one transition that moves the menu closer to the target. A running open or close
+     * is left to finish unless the menu has to hide or show, the transition after it is started
+     * when it finishes.
+     */
+    private void pump() {
+        if (mState == mTarget) {
+            return;
+        }
+        switch (mState) {
+            case STATE_CLOSED:
+                if (mTarget == STATE_OPEN) {
+                    startOpen();
+                } else {
+                    startHide();
+                }
+                break;
+            case STATE_OPEN:
+                if (mTarget == STATE_CLOSED) {
+                    startClose();
+                } else {
+                    startHide();
+                }
+                break;
+            case STATE_OPENING:
+            case STATE_CLOSING:
+                if (mTarget == STATE_HIDDEN) {
+                    startHide();
+                }
+                break;
+            case STATE_HIDING:
+                //A hide that is running already heads for the target
+                if (mTarget != STATE_HIDDEN) {
+                    startShow();
+                }
+                break;
+            case STATE_HIDDEN:
+                startShow();
+                break;
+        }
+    }
+
+    private void startOpen() {
+        mState = STATE_OPENING;
+        mRenderer.onOpenStarted();
+        startItems(false, false);
+    }
+
+    private void startClose() {
+        mState = STATE_CLOSING;
+        mRenderer.onCloseStarted();
+        startItems(true, false);
+    }
+
+    private void startHide() {
+        boolean itemsOut = mItemsOpen || mState == STATE_OPENING;
+        mScheduler.cancel(mTick);
+        mState = STATE_HIDING;
+        mMenuButtonHidden = false;
+        if (itemsOut) {
+            mItemsOpen = true;
+            mRenderer.onCloseStarted();
+            //The menu button waits one more step after the last item
+            startItems(false, true);
+        } else {
+            mItemCount = 0;
+            mNextItem = 0;
+            mStartTime = mScheduler.uptimeMillis();
+            mFinishTime = 0;
+            tick();
+        }
+    }
+
+    private void startShow() {
+        mScheduler.cancel(mTick);
+        if (mState == STATE_HIDING) {
+            //Items that the cut short hide did not get to are hidden right away
+            while (mNextItem < mItemCount) {
+                mRenderer.onHideItem(mOrder[mNextItem++]);
+            }
+        }
+        mState = STATE_CLOSED;
+        mItemsOpen = false;
+        mMenuButtonHidden = false;
+        mRenderer.onShown();
+        if (mState != mTarget) {
+            schedulePump();
+        }
+    }
+
+    /**
+     * Collects the items of the transition that is starting, sorts them by the time they animate
+     * at and runs the first step
+     *
+     * @param reverse true to run the stagger steps from the last to the first
+     * @param extraStep true to wait one more step after the last item before finishing
+     */
+    private void startItems(boolean reverse, boolean extraStep) {
+        int count = mRenderer.getItemCount();
+        if (mSteps.length < count) {
+            mSteps = new int[count];
+            mTimes = new long[count];
+            mOrder = new int[count];
+        }
+
+        int lastStep = -1;
+        for (int i = 0; i < count; i++) {
+            mSteps[i] = Math.max(0, mRenderer.getStaggerStep(i));
+            lastStep = Math.max(lastStep, mSteps[i]);
+        }
+        if (reverse) {
+            for (int i = 0; i < count; i++) {
+                mSteps[i] = lastStep - mSteps[i];
+            }
+        }
+
+        int slots = lastStep + (extraStep ? 2 : 1);
+        long staggerTime = slots * mDelayPerItem;
+        if (mMaxDuration > 0) {
+            staggerTime = Math.min(staggerTime, Math.max(0, mMaxDuration - mDuration));
+        }
+        for (int i = 0; i < count; i++) {
+            mTimes[i] = getStepTime(mSteps[i], slots, staggerTime);
+        }
+
+        //The times are usually in order already, so an insertion sort only runs through them once
+        for (int i = 0; i < count; i++) {
+            int item = i;
+            int j = i;
+            while (j > 0 && mTimes[mOrder[j - 1]] > mTimes[item]) {
+                mOrder[j] = mOrder[j - 1];
+                j--;
+            }
+            mOrder[j] = item;
+        }
+
+        mItemCount = count;
+        mNextItem = 0;
+        mStartTime = mScheduler.uptimeMillis();
+        mFinishTime = staggerTime + mDuration;
+        if (mState == STATE_HIDING && count == 0) {
+            mFinishTime = 0;
+        }
+        tick();
+    }
+
+    private long getStepTime(int step, int slots, long staggerTime) {
+        if (mStaggerCurve == null) {
+            return staggerTime * step / slots;
+        }
+        float offset = mStaggerCurve.getOffset((float) step / slots);
+        return (long) (staggerTime * Math.max(0f, Math.min(1f, offset)));
+    }
+
+    private void tick() {
+        long elapsed = mScheduler.uptimeMillis() - mStartTime;
+        int state = mState;
+
+        while (mNextItem < mItemCount) {
+            int item = mOrder[mNextItem];
+            if (mTimes[item] > elapsed) {
+                mScheduler.postDelayed(mTick, mTimes[item] - elapsed);
+                return;
+            }
+            mNextItem++;
+            if (state == STATE_OPENING) {
+                mRenderer.onShowItem(item);
+            } else {
+                mRenderer.onHideItem(item);
+            }
+            if (mState != state) {
+                //The renderer started another transition
+                return;
+            }
+        }
+
+        if (elapsed < mFinishTime) {
+            mScheduler.postDelayed(mTick, mFinishTime - elapsed);
+            return;
+        }
+        finish();
+    }
+
+    private void finish() {
+        settle();
+        if (mState != mTarget && !isAnimating()) {
+            schedulePump();
+        }
+    }
+
+    private void settle() {
+        switch (mState) {
+            case STATE_OPENING:
+                mState = STATE_OPEN;
+                mItemsOpen = true;
+                mRenderer.onOpenFinished();
+                break;
+            case STATE_CLOSING:
+                mState = STATE_CLOSED;
+                mItemsOpen = false;
+                mRenderer.onCloseFinished();
+                break;
+            case STATE_HIDING:
+                if (!mMenuButtonHidden) {
+                    mMenuButtonHidden = true;
+                    mItemsOpen = false;
+                    mItemCount = 0;
+                    mNextItem = 0;
+                    mStartTime = mScheduler.uptimeMillis();
+                    mFinishTime = mDuration;
+                    mRenderer.onHideMenuButton();
+                    if (mState == STATE_HIDING) {
+                        tick();
+                    }
+                } else {
+                    mState = STATE_HIDDEN;
+                    mRenderer.onHidden();
+                }
+                break;
+        }
+    }
+}
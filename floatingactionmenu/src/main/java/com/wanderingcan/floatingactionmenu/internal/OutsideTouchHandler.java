@@ -0,0 +1,220 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import android.view.MotionEvent;
+
+import com.wanderingcan.floatingactionmenu.FloatingActionMenu;
+
+/**
+ * Decides when a touch outside of the menu items closes the menu. The items are hit tested
+ * against a flat list of bounds that is filled on every layout, a touch that lands on an item is
+ * left to the touch delegates. Nothing is allocated while handling a touch.
+ */
+public class OutsideTouchHandler {
+
+    private static final int BOUNDS_STRIDE = 5;
+    private static final int BOUNDS_SCROLLED = 4;
+
+    private final Runnable mCloseAction;
+    private int mMode = FloatingActionMenu.CLOSE_ON_UP;
+    private int mTouchSlopSquare;
+    private boolean mEnabled;
+
+    private int[] mBounds = new int[BOUNDS_STRIDE * 8];
+    private int mBoundsCount;
+
+    private int mScrollX;
+    private int mScrollY;
+    private int mClipLeft;
+    private int mClipTop;
+    private int mClipRight;
+    private int mClipBottom;
+
+    private boolean mTracking;
+    private float mDownX;
+    private float mDownY;
+
+    /**
+     * @param touchSlop the distance in pixels a touch may move and still be a tap
+     * @param closeAction run when the touch should close the menu
+     */
+    public OutsideTouchHandler(int touchSlop, Runnable closeAction) {
+        mTouchSlopSquare = touchSlop * touchSlop;
+        mCloseAction = closeAction;
+    }
+
+    /**
+     * Sets which part of the touch closes the menu
+     */
+    public void setMode(@FloatingActionMenu.OutsideTouchMode int mode) {
+        mMode = mode;
+    }
+
+    @FloatingActionMenu.OutsideTouchMode
+    public int getMode() {
+        return mMode;
+    }
+
+    /**
+     * Sets if touches are handled, only an open menu closes on outside touches
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        if (!enabled) {
+            mTracking = false;
+        }
+    }
+
+    /**
+     * Removes the bounds of every item and resets the scroll offset
+     */
+    public void clearBounds() {
+        mBoundsCount = 0;
+        mScrollX = 0;
+        mScrollY = 0;
+    }
+
+    /**
+     * Adds the bounds of an item, touches inside of them are not outside touches
+     */
+    public void addBounds(int left, int top, int right, int bottom) {
+        addBounds(left, top, right, bottom, false);
+    }
+
+    /**
+     * Adds the bounds of an item that moves with {@link #offsetScrolled(int, int)}. Only the part
+     * of the bounds that is within the scroll clip counts as the item.
+     */
+    public void addScrolledBounds(int left, int top, int right, int bottom) {
+        addBounds(left, top, right, bottom, true);
+    }
+
+    /**
+     * Moves the scrolled bounds by the distance the items were moved
+     */
+    public void offsetScrolled(int dx, int dy) {
+        mScrollX += dx;
+        mScrollY += dy;
+    }
+
+    /**
+     * Sets the area the scrolled items are drawn in, an empty clip does not clip
+     */
+    public void setScrollClip(int left, int top, int right, int bottom) {
+        mClipLeft = left;
+        mClipTop = top;
+        mClipRight = right;
+        mClipBottom = bottom;
+    }
+
+    private void addBounds(int left, int top, int right, int bottom, boolean scrolled) {
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        int offset = mBoundsCount * BOUNDS_STRIDE;
+        if (offset + BOUNDS_STRIDE > mBounds.length) {
+            int[] bounds = new int[mBounds.length * 2];
+            System.arraycopy(mBounds, 0, bounds, 0, offset);
+            mBounds = bounds;
+        }
+        mBounds[offset] = left;
+        mBounds[offset + 1] = top;
+        mBounds[offset + 2] = right;
+        mBounds[offset + 3] = bottom;
+        mBounds[offset + BOUNDS_SCROLLED] = scrolled ? 1 : 0;
+        mBoundsCount++;
+    }
+
+    /**
+     * Returns if the point is inside the bounds of any item
+     */
+    public boolean hitTest(float x, float y) {
+        boolean inClip = mClipLeft >= mClipRight || mClipTop >= mClipBottom
+                || (x >= mClipLeft && x < mClipRight && y >= mClipTop && y < mClipBottom);
+        for (int i = 0; i < mBoundsCount; i++) {
+            int offset = i * BOUNDS_STRIDE;
+            float testX = x;
+            float testY = y;
+            if (mBounds[offset + BOUNDS_SCROLLED] != 0) {
+                if (!inClip) continue;
+                testX -= mScrollX;
+                testY -= mScrollY;
+            }
+            if (testX >= mBounds[offset] && testX < mBounds[offset + 2]
+                    && testY >= mBounds[offset + 1] && testY < mBounds[offset + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Handles a touch that no child took
+     *
+     * @return true if the touch is outside of the items and was used by the handler
+     */
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mTracking = false;
+                if (!mEnabled || hitTest(event.getX(), event.getY())) {
+                    return false;
+                }
+                if (mMode == FloatingActionMenu.CLOSE_ON_DOWN) {
+                    mCloseAction.run();
+                } else {
+                    mTracking = true;
+                    mDownX = event.getX();
+                    mDownY = event.getY();
+                }
+                return true;
+
+            case MotionEvent.ACTION_MOVE:
+                if (!mTracking) {
+                    return false;
+                }
+                float dx = event.getX() - mDownX;
+                float dy = event.getY() - mDownY;
+                if (dx * dx + dy * dy > mTouchSlopSquare) {
+                    //Past the slop the touch is no longer a tap
+                    mTracking = false;
+                    if (mMode == FloatingActionMenu.CLOSE_ON_DRAG) {
+                        mCloseAction.run();
+                    }
+                }
+                return true;
+
+            case MotionEvent.ACTION_UP:
+                if (!mTracking) {
+                    return false;
+                }
+                mTracking = false;
+                if (mMode == FloatingActionMenu.CLOSE_ON_UP) {
+                    mCloseAction.run();
+                }
+                return true;
+
+            case MotionEvent.ACTION_CANCEL:
+                boolean tracking = mTracking;
+                mTracking = false;
+                return tracking;
+        }
+        return mTracking;
+    }
+}
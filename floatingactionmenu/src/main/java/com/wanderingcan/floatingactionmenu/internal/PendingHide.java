@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+/**
+ * Times the end of the hide animation of a view. The view stays visible while the animation plays
+ * and is hidden by the target once the animation is over, unless the hide is cancelled first.
+ */
+public class PendingHide implements Runnable {
+
+    private final Runnable mTarget;
+    private Scheduler mScheduler;
+    private boolean mPending;
+
+    /**
+     * @param target hides the view when the hide animation is over
+     */
+    public PendingHide(Runnable target, Scheduler scheduler) {
+        mTarget = target;
+        mScheduler = scheduler;
+    }
+
+    /**
+     * Hides the view once the delay is over, replacing a hide that is pending
+     */
+    public void post(long delayMillis) {
+        mScheduler.cancel(this);
+        mPending = true;
+        mScheduler.postDelayed(this, delayMillis);
+    }
+
+    /**
+     * Drops the pending hide, the view stays visible
+     *
+     * @return true if a hide was pending
+     */
+    public boolean cancel() {
+        if (!mPending) {
+            return false;
+        }
+        mScheduler.cancel(this);
+        mPending = false;
+        return true;
+    }
+
+    /**
+     * Hides the view right away if a hide is pending
+     */
+    public void finish() {
+        if (cancel()) {
+            mTarget.run();
+        }
+    }
+
+    public boolean isPending() {
+        return mPending;
+    }
+
+    /**
+     * Sets the scheduler that times the hide. A hide that is pending is finished right away on the
+     * new scheduler.
+     */
+    public void setScheduler(Scheduler scheduler) {
+        if (scheduler == mScheduler) {
+            return;
+        }
+        mScheduler.cancel(this);
+        mScheduler = scheduler;
+        if (mPending) {
+            mScheduler.postDelayed(this, 0);
+        }
+    }
+
+    @Override
+    public void run() {
+        mPending = false;
+        mTarget.run();
+    }
+}
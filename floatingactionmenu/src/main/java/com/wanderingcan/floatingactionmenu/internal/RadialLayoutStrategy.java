@@ -0,0 +1,303 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import com.wanderingcan.floatingactionmenu.MenuLayoutStrategy;
+
+/**
+ * Fans the items along an arc around the main button. Angles are in degrees, 0 points right and
+ * the angles go counter clockwise, so 90 points up. The sine and cosine of every slot are worked
+ * out once when the arc or the number of items changes, never while measuring or laying out.
+ */
+public class RadialLayoutStrategy implements MenuLayoutStrategy {
+
+    private float mStartAngle;
+    private float mSweepAngle;
+    private int mRadius;
+
+    private int mSlotCount = -1;
+    private float[] mCos = new float[0];
+    private float[] mSin = new float[0];
+
+    /**
+     * The offsets of the item centers from the main button center of the last measure or layout
+     */
+    private int[] mOffsets = new int[0];
+
+    public RadialLayoutStrategy(float startAngle, float sweepAngle, int radius) {
+        setArc(startAngle, sweepAngle);
+        mRadius = radius;
+    }
+
+    /**
+     * Sets the arc the items are placed on
+     *
+     * @param startAngle the angle of the first item in degrees
+     * @param sweepAngle the angle between the first and the last item in degrees
+     */
+    public void setArc(float startAngle, float sweepAngle) {
+        if (startAngle != mStartAngle || sweepAngle != mSweepAngle) {
+            mStartAngle = startAngle;
+            mSweepAngle = sweepAngle;
+            mSlotCount = -1;
+        }
+    }
+
+    /**
+     * Sets the distance between the center of the main button and the centers of the items.
+     * A radius of 0 or less fits the radius to the number and size of the items.
+     */
+    public void setRadius(int radius) {
+        mRadius = radius;
+    }
+
+    public float getStartAngle() {
+        return mStartAngle;
+    }
+
+    public float getSweepAngle() {
+        return mSweepAngle;
+    }
+
+    public int getRadius() {
+        return mRadius;
+    }
+
+    /**
+     * Two radial strategies are equal when they place the items on the same arc and radius
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        RadialLayoutStrategy strategy = (RadialLayoutStrategy) o;
+        return mStartAngle == strategy.mStartAngle && mSweepAngle == strategy.mSweepAngle
+                && mRadius == strategy.mRadius;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Float.floatToIntBits(mStartAngle);
+        result = 31 * result + Float.floatToIntBits(mSweepAngle);
+        result = 31 * result + mRadius;
+        return result;
+    }
+
+    @Override
+    public void measure(int count, int[] sizes, Params params, int[] outSize) {
+        computeOffsets(count, sizes, params);
+
+        int left = -sizes[SIZE_WIDTH] / 2;
+        int top = -sizes[SIZE_HEIGHT] / 2;
+        int right = left + sizes[SIZE_WIDTH];
+        int bottom = top + sizes[SIZE_HEIGHT];
+
+        for (int i = 1; i < count; i++) {
+            int size = i * SIZE_STRIDE;
+            int dx = mOffsets[i * 2];
+            int dy = mOffsets[i * 2 + 1];
+            int halfWidth = sizes[size + SIZE_WIDTH] / 2;
+            int halfHeight = sizes[size + SIZE_HEIGHT] / 2;
+            int labelWidth = sizes[size + SIZE_LABEL_WIDTH];
+
+            int itemLeft = dx - halfWidth;
+            int itemRight = dx + halfWidth;
+            if (labelWidth > 0) {
+                if (dx < 0) {
+                    itemLeft -= labelWidth + params.labelsMargin;
+                } else {
+                    itemRight += labelWidth + params.labelsMargin;
+                }
+            }
+            int halfExtent = Math.max(halfHeight, sizes[size + SIZE_LABEL_HEIGHT] / 2);
+
+            left = Math.min(left, itemLeft);
+            right = Math.max(right, itemRight);
+            top = Math.min(top, dy - halfExtent);
+            bottom = Math.max(bottom, dy + halfExtent);
+        }
+
+        outSize[0] = right - left + params.contentPadding
+                + params.paddingLeft + params.paddingRight;
+        outSize[1] = bottom - top + params.contentPadding
+                + params.paddingTop + params.paddingBottom;
+    }
+
+    @Override
+    public void layout(int count, int[] sizes, Params params, int width, int height,
+                       int[] outFrames) {
+        computeOffsets(count, sizes, params);
+
+        //Anchor the main button in the corner the arc points away from
+        int maxRight = 0;
+        int maxLeft = 0;
+        int maxDown = 0;
+        int maxUp = 0;
+        for (int i = 1; i < count; i++) {
+            int dx = mOffsets[i * 2];
+            int dy = mOffsets[i * 2 + 1];
+            int size = i * SIZE_STRIDE;
+            int labelExtent = sizes[size + SIZE_LABEL_WIDTH] > 0
+                    ? sizes[size + SIZE_LABEL_WIDTH] + params.labelsMargin
+                    : 0;
+            maxRight = Math.max(maxRight, dx + sizes[size + SIZE_WIDTH] / 2
+                    + (dx >= 0 ? labelExtent : 0));
+            maxLeft = Math.max(maxLeft, -dx + sizes[size + SIZE_WIDTH] / 2
+                    + (dx < 0 ? labelExtent : 0));
+            maxDown = Math.max(maxDown, dy + sizes[size + SIZE_HEIGHT] / 2);
+            maxUp = Math.max(maxUp, -dy + sizes[size + SIZE_HEIGHT] / 2);
+        }
+
+        int mainWidth = sizes[SIZE_WIDTH];
+        int mainHeight = sizes[SIZE_HEIGHT];
+        int inset = params.contentPadding / 2;
+        int centerX = maxLeft > maxRight
+                ? width - params.paddingRight - inset - Math.max(mainWidth / 2, maxRight)
+                : params.paddingLeft + inset + Math.max(mainWidth / 2, maxLeft);
+        int centerY = maxUp > maxDown
+                ? height - params.paddingBottom - inset - Math.max(mainHeight / 2, maxDown)
+                : params.paddingTop + inset + Math.max(mainHeight / 2, maxUp);
+
+        outFrames[FRAME_LEFT] = centerX - mainWidth / 2;
+        outFrames[FRAME_TOP] = centerY - mainHeight / 2;
+        outFrames[FRAME_LABEL_LEFT] = NO_POSITION;
+        outFrames[FRAME_LABEL_TOP] = NO_POSITION;
+        outFrames[FRAME_TOUCH_LEFT] = 0;
+        outFrames[FRAME_TOUCH_TOP] = 0;
+        outFrames[FRAME_TOUCH_RIGHT] = 0;
+        outFrames[FRAME_TOUCH_BOTTOM] = 0;
+        outFrames[FRAME_STAGGER] = 0;
+
+        int halfMargin = params.buttonMargin / 2;
+        for (int i = 1; i < count; i++) {
+            int size = i * SIZE_STRIDE;
+            int frame = i * FRAME_STRIDE;
+            int childWidth = sizes[size + SIZE_WIDTH];
+            int childHeight = sizes[size + SIZE_HEIGHT];
+            int labelWidth = sizes[size + SIZE_LABEL_WIDTH];
+            int labelHeight = sizes[size + SIZE_LABEL_HEIGHT];
+            int dx = mOffsets[i * 2];
+
+            int childX = centerX + dx - childWidth / 2;
+            int childY = centerY + mOffsets[i * 2 + 1] - childHeight / 2;
+            outFrames[frame + FRAME_LEFT] = childX;
+            outFrames[frame + FRAME_TOP] = childY;
+            outFrames[frame + FRAME_STAGGER] = i - 1;
+
+            int touchLeft = childX;
+            int touchTop = childY;
+            int touchRight = childX + childWidth;
+            int touchBottom = childY + childHeight;
+            if (labelWidth > 0) {
+                int labelLeft = dx < 0
+                        ? childX - params.labelsMargin - labelWidth
+                        : childX + childWidth + params.labelsMargin;
+                int labelTop = childY + (childHeight - labelHeight) / 2;
+                outFrames[frame + FRAME_LABEL_LEFT] = labelLeft;
+                outFrames[frame + FRAME_LABEL_TOP] = labelTop;
+
+                touchLeft = Math.min(touchLeft, labelLeft);
+                touchTop = Math.min(touchTop, labelTop);
+                touchRight = Math.max(touchRight, labelLeft + labelWidth);
+                touchBottom = Math.max(touchBottom, labelTop + labelHeight);
+            } else {
+                outFrames[frame + FRAME_LABEL_LEFT] = NO_POSITION;
+                outFrames[frame + FRAME_LABEL_TOP] = NO_POSITION;
+            }
+
+            outFrames[frame + FRAME_TOUCH_LEFT] = touchLeft - halfMargin;
+            outFrames[frame + FRAME_TOUCH_TOP] = touchTop - halfMargin;
+            outFrames[frame + FRAME_TOUCH_RIGHT] = touchRight + halfMargin;
+            outFrames[frame + FRAME_TOUCH_BOTTOM] = touchBottom + halfMargin;
+        }
+    }
+
+    /**
+     * Works out the offset of every item center from the main button center. Only multiplies the
+     * radius with the precomputed sine and cosine of each slot.
+     */
+    private void computeOffsets(int count, int[] sizes, Params params) {
+        int slots = count - 1;
+        ensureSlots(slots);
+        if (mOffsets.length < count * 2) {
+            mOffsets = new int[count * 2];
+        }
+
+        int radius = mRadius > 0 ? mRadius : fitRadius(count, sizes, params);
+        for (int i = 1; i < count; i++) {
+            mOffsets[i * 2] = Math.round(radius * mCos[i - 1]);
+            //Screen coordinates grow downwards
+            mOffsets[i * 2 + 1] = -Math.round(radius * mSin[i - 1]);
+        }
+    }
+
+    /**
+     * Gets a radius where the items are spaced at least one button margin apart along the arc
+     * and do not overlap the main button
+     */
+    private int fitRadius(int count, int[] sizes, Params params) {
+        int maxItem = 0;
+        for (int i = 1; i < count; i++) {
+            int size = i * SIZE_STRIDE;
+            maxItem = Math.max(maxItem,
+                    Math.max(sizes[size + SIZE_WIDTH], sizes[size + SIZE_HEIGHT]));
+        }
+        int mainSize = Math.max(sizes[SIZE_WIDTH], sizes[SIZE_HEIGHT]);
+        int minRadius = (mainSize + maxItem) / 2 + params.buttonMargin;
+
+        int gaps = gapCount(count - 1);
+        if (gaps == 0 || mSweepAngle == 0) {
+            return minRadius;
+        }
+        double sweep = Math.toRadians(Math.abs(mSweepAngle));
+        int arcRadius = (int) Math.ceil((maxItem + params.buttonMargin) * gaps / sweep);
+        return Math.max(minRadius, arcRadius);
+    }
+
+    private void ensureSlots(int slots) {
+        if (slots == mSlotCount) {
+            return;
+        }
+        mSlotCount = slots;
+        if (mCos.length < slots) {
+            mCos = new float[slots];
+            mSin = new float[slots];
+        }
+
+        int gaps = gapCount(slots);
+        for (int i = 0; i < slots; i++) {
+            float angle = gaps == 0
+                    ? mStartAngle + mSweepAngle / 2
+                    : mStartAngle + mSweepAngle * i / gaps;
+            double radians = Math.toRadians(angle);
+            mCos[i] = (float) Math.cos(radians);
+            mSin[i] = (float) Math.sin(radians);
+        }
+    }
+
+    /**
+     * Gets the number of gaps between the slots. A full circle has a gap between the last and the
+     * first slot as well.
+     */
+    private int gapCount(int slots) {
+        if (Math.abs(mSweepAngle) >= 360) {
+            return slots;
+        }
+        return Math.max(0, slots - 1);
+    }
+}
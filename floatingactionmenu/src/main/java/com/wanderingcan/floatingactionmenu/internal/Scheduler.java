@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+/**
+ * The clock and the queue that the menu runs its timed work on. Keeps the timing of the menu away
+ * from {@link android.os.Handler} so it can be swapped out when the menu is driven off a device.
+ */
+public interface Scheduler {
+
+    /**
+     * Gets the current time of the scheduler in milliseconds
+     */
+    long uptimeMillis();
+
+    /**
+     * Gets the time the current frame started in nanoseconds, on the same clock as
+     * {@link #uptimeMillis()}. Outside of a frame task it is the current time.
+     */
+    long frameTimeNanos();
+
+    /**
+     * Runs the task once the delay has passed. Posting a task that is already pending adds it a
+     * second time.
+     */
+    void postDelayed(Runnable task, long delayMillis);
+
+    /**
+     * Runs the task at the start of the next frame. Tasks posted during the same frame run together,
+     * in the order they were posted.
+     */
+    void postOnFrame(Runnable task);
+
+    /**
+     * Removes every pending run of the task, whether it was posted with a delay or on a frame
+     */
+    void cancel(Runnable task);
+}
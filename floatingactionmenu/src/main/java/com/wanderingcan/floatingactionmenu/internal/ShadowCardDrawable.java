@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * A rounded card with a shadow for platforms before L, where CardView renders its shadow in
+ * software for every instance and every size change. The shadow of each radius, elevation and
+ * density is rasterized once into a small bitmap that is shared through a cache, and is drawn
+ * stretched like a nine-patch around the card.
+ */
+public class ShadowCardDrawable extends Drawable {
+
+    /**
+     * Same ratio CardView uses between the elevation and the size of the shadow before L
+     */
+    private static final float SHADOW_MULTIPLIER = 1.5f;
+    private static final int SHADOW_COLOR = 0x37000000;
+    private static final int CACHE_SIZE = 512 * 1024;
+
+    private static final LruCache<Key, Bitmap> sShadowCache = new LruCache<Key, Bitmap>(CACHE_SIZE) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getRowBytes() * value.getHeight();
+        }
+    };
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mShadowPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF mCardBounds = new RectF();
+    private final Rect mSrc = new Rect();
+    private final Rect mDst = new Rect();
+    private final float mDensity;
+
+    private float mRadius;
+    private float mElevation;
+    private float mMaxElevation;
+    private Bitmap mShadow;
+    private int mShadowCorner;
+
+    /**
+     * @param density the display density the shadow is rasterized for
+     */
+    public ShadowCardDrawable(int color, float radius, float elevation, float maxElevation,
+                              float density) {
+        mPaint.setColor(color);
+        mRadius = Math.max(0f, radius);
+        mElevation = Math.max(0f, elevation);
+        mMaxElevation = Math.max(mElevation, maxElevation);
+        mDensity = density;
+        updateShadow();
+    }
+
+    public void setColor(int color) {
+        mPaint.setColor(color);
+        invalidateSelf();
+    }
+
+    public void setRadius(float radius) {
+        radius = Math.max(0f, radius);
+        if (radius != mRadius) {
+            mRadius = radius;
+            updateShadow();
+            invalidateSelf();
+        }
+    }
+
+    public float getRadius() {
+        return mRadius;
+    }
+
+    /**
+     * Sets the elevation the shadow is drawn for. The maximum elevation grows with it if needed.
+     */
+    public void setElevation(float elevation) {
+        elevation = Math.max(0f, elevation);
+        if (elevation != mElevation) {
+            mElevation = elevation;
+            mMaxElevation = Math.max(mMaxElevation, elevation);
+            updateShadow();
+            invalidateSelf();
+        }
+    }
+
+    public float getElevation() {
+        return mElevation;
+    }
+
+    /**
+     * Sets the elevation the space around the card is reserved for, so changing the elevation up
+     * to it does not change the size of the card
+     */
+    public void setMaxElevation(float maxElevation) {
+        maxElevation = Math.max(mElevation, maxElevation);
+        if (maxElevation != mMaxElevation) {
+            mMaxElevation = maxElevation;
+            invalidateSelf();
+        }
+    }
+
+    public float getMaxElevation() {
+        return mMaxElevation;
+    }
+
+    /**
+     * Gets the space around the card that is reserved for the shadow
+     */
+    public void getShadowPadding(Rect outPadding) {
+        int horizontal = (int) Math.ceil(mMaxElevation * SHADOW_MULTIPLIER);
+        int vertical = (int) Math.ceil(mMaxElevation * SHADOW_MULTIPLIER * SHADOW_MULTIPLIER);
+        outPadding.set(horizontal, vertical, horizontal, vertical);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        Rect bounds = getBounds();
+        float horizontal = mMaxElevation * SHADOW_MULTIPLIER;
+        float vertical = horizontal * SHADOW_MULTIPLIER;
+        mCardBounds.set(bounds.left + horizontal, bounds.top + vertical,
+                bounds.right - horizontal, bounds.bottom - vertical);
+
+        if (mShadow != null) {
+            int shadowSize = shadowSize(mElevation);
+            int offset = shadowSize / 2;
+            drawShadow(canvas, Math.round(mCardBounds.left) - shadowSize,
+                    Math.round(mCardBounds.top) - shadowSize + offset,
+                    Math.round(mCardBounds.right) + shadowSize,
+                    Math.round(mCardBounds.bottom) + shadowSize + offset);
+        }
+        canvas.drawRoundRect(mCardBounds, mRadius, mRadius, mPaint);
+    }
+
+    /**
+     * Draws the cached shadow like a nine-patch: the corners as they are, the edges stretched
+     * along the sides and the center stretched across the card
+     */
+    private void drawShadow(Canvas canvas, int left, int top, int right, int bottom) {
+        int size = mShadow.getWidth();
+        int corner = Math.min(mShadowCorner, Math.min((right - left) / 2, (bottom - top) / 2));
+        if (corner <= 0) {
+            return;
+        }
+        int[] srcX = {0, mShadowCorner, size - mShadowCorner, size};
+        int[] srcY = srcX;
+        int[] dstX = {left, left + corner, right - corner, right};
+        int[] dstY = {top, top + corner, bottom - corner, bottom};
+
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                if (dstX[column + 1] <= dstX[column] || dstY[row + 1] <= dstY[row]) {
+                    continue;
+                }
+                mSrc.set(srcX[column], srcY[row], srcX[column + 1], srcY[row + 1]);
+                mDst.set(dstX[column], dstY[row], dstX[column + 1], dstY[row + 1]);
+                canvas.drawBitmap(mShadow, mSrc, mDst, mShadowPaint);
+            }
+        }
+    }
+
+    private void updateShadow() {
+        int shadowSize = shadowSize(mElevation);
+        if (shadowSize <= 0) {
+            mShadow = null;
+            mShadowCorner = 0;
+            return;
+        }
+        Key key = new Key(mRadius, shadowSize, mDensity);
+        Bitmap shadow = sShadowCache.get(key);
+        if (shadow == null) {
+            shadow = createShadow(mRadius, shadowSize);
+            sShadowCache.put(key, shadow);
+        }
+        mShadow = shadow;
+        mShadowCorner = cornerSize(mRadius, shadowSize);
+    }
+
+    private static int shadowSize(float elevation) {
+        return Math.round(elevation * SHADOW_MULTIPLIER);
+    }
+
+    private static int cornerSize(float radius, int shadowSize) {
+        return (int) Math.ceil(radius) + shadowSize * 2;
+    }
+
+    /**
+     * Rasterizes the shadow of a card that is just big enough to have its corners and a single
+     * pixel wide edge
+     */
+    private static Bitmap createShadow(float radius, int shadowSize) {
+        int corner = cornerSize(radius, shadowSize);
+        int size = corner * 2 + 1;
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(SHADOW_COLOR);
+        paint.setMaskFilter(new BlurMaskFilter(shadowSize, BlurMaskFilter.Blur.NORMAL));
+        RectF card = new RectF(shadowSize, shadowSize, size - shadowSize, size - shadowSize);
+        new Canvas(bitmap).drawRoundRect(card, radius, radius, paint);
+        return bitmap;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+        mShadowPaint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    private static final class Key {
+
+        private final float mRadius;
+        private final int mShadowSize;
+        private final float mDensity;
+
+        Key(float radius, int shadowSize, float density) {
+            mRadius = radius;
+            mShadowSize = shadowSize;
+            mDensity = density;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mRadius == key.mRadius && mShadowSize == key.mShadowSize
+                    && mDensity == key.mDensity;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Float.floatToIntBits(mRadius);
+            result = 31 * result + mShadowSize;
+            result = 31 * result + Float.floatToIntBits(mDensity);
+            return result;
+        }
+    }
+}
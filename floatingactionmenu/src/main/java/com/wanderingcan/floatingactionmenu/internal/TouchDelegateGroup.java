@@ -27,9 +27,15 @@ import java.util.ArrayList;
 public class TouchDelegateGroup extends TouchDelegate {
     private static final Rect USELESS_HACKY_RECT = new Rect();
     private final ArrayList<TouchDelegate> mTouchDelegates = new ArrayList<>();
+    private final ArrayList<TouchDelegate> mScrolledTouchDelegates = new ArrayList<>();
     private TouchDelegate mCurrentTouchDelegate;
+    private boolean mCurrentScrolled;
     private boolean mEnabled;
 
+    private int mScrollX;
+    private int mScrollY;
+    private final Rect mScrollClip = new Rect();
+
     public TouchDelegateGroup(View uselessHackyView) {
         super(USELESS_HACKY_RECT, uselessHackyView);
     }
@@ -38,16 +44,46 @@ public class TouchDelegateGroup extends TouchDelegate {
         mTouchDelegates.add(touchDelegate);
     }
 
+    /**
+     * Adds a touch delegate whose area moves with {@link #offsetScrolled(int, int)} and that only
+     * takes touches within the scroll clip
+     */
+    public void addScrolledTouchDelegate(@NonNull TouchDelegate touchDelegate) {
+        mScrolledTouchDelegates.add(touchDelegate);
+    }
+
     public void removeTouchDelegate(TouchDelegate touchDelegate) {
         mTouchDelegates.remove(touchDelegate);
+        mScrolledTouchDelegates.remove(touchDelegate);
         if (mCurrentTouchDelegate == touchDelegate) {
             mCurrentTouchDelegate = null;
         }
     }
 
+    /**
+     * Removes every touch delegate and resets the scroll offset
+     */
     public void clearTouchDelegates() {
         mTouchDelegates.clear();
+        mScrolledTouchDelegates.clear();
         mCurrentTouchDelegate = null;
+        mScrollX = 0;
+        mScrollY = 0;
+    }
+
+    /**
+     * Moves the areas of the scrolled touch delegates by the distance the items were moved
+     */
+    public void offsetScrolled(int dx, int dy) {
+        mScrollX += dx;
+        mScrollY += dy;
+    }
+
+    /**
+     * Sets the area the scrolled items are drawn in, an empty clip does not clip
+     */
+    public void setScrollClip(Rect clip) {
+        mScrollClip.set(clip);
     }
 
     @Override
@@ -62,6 +98,19 @@ public class TouchDelegateGroup extends TouchDelegate {
                     TouchDelegate touchDelegate = mTouchDelegates.get(i);
                     if (touchDelegate.onTouchEvent(event)) {
                         mCurrentTouchDelegate = touchDelegate;
+                        mCurrentScrolled = false;
+                        return true;
+                    }
+                }
+                if (!mScrollClip.isEmpty()
+                        && !mScrollClip.contains((int) event.getX(), (int) event.getY())) {
+                    break;
+                }
+                for (int i = 0; i < mScrolledTouchDelegates.size(); i++) {
+                    TouchDelegate touchDelegate = mScrolledTouchDelegates.get(i);
+                    if (dispatchScrolled(touchDelegate, event)) {
+                        mCurrentTouchDelegate = touchDelegate;
+                        mCurrentScrolled = true;
                         return true;
                     }
                 }
@@ -78,7 +127,22 @@ public class TouchDelegateGroup extends TouchDelegate {
                 break;
         }
 
-        return delegate != null && delegate.onTouchEvent(event);
+        if (delegate == null) {
+            return false;
+        }
+        return mCurrentScrolled ? dispatchScrolled(delegate, event) : delegate.onTouchEvent(event);
+    }
+
+    /**
+     * Hands the touch to the delegate in the coordinates its area was laid out in
+     */
+    private boolean dispatchScrolled(TouchDelegate touchDelegate, MotionEvent event) {
+        float x = event.getX();
+        float y = event.getY();
+        event.offsetLocation(-mScrollX, -mScrollY);
+        boolean handled = touchDelegate.onTouchEvent(event);
+        event.setLocation(x, y);
+        return handled;
     }
 
     public void setEnabled(boolean enabled) {
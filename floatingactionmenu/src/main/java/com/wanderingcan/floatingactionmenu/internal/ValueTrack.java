@@ -0,0 +1,304 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import android.animation.TimeInterpolator;
+
+import java.util.ArrayList;
+
+/**
+ * Animates a single float on the frames of a {@link Scheduler}. Every track that runs on the same
+ * scheduler is ticked from the same frame callback, so many menus animating together cost one
+ * frame callback instead of one animator each.
+ * <p>
+ * Tracks that drive the same view can be put in a {@link Group}. The group ticks all of its tracks
+ * from one frame task and hands their values over in one call, so the view is updated and
+ * invalidated once per frame however many of its tracks are running. Tracks of the group that use
+ * the same interpolator and are at the same point of their animation share its evaluation within
+ * the frame.
+ */
+public class ValueTrack implements Runnable {
+
+    /**
+     * Receives the value of the track on every frame
+     */
+    public interface Target {
+        void onValue(float value);
+    }
+
+    /**
+     * Ticks several tracks together. The target reads the values of the tracks itself.
+     */
+    public static class Group implements Runnable {
+
+        /**
+         * Called once per frame after the running tracks of the group have moved, and whenever a
+         * track of the group jumps to a value
+         */
+        public interface Target {
+            void onValues();
+        }
+
+        private final Target mTarget;
+        private final ArrayList<ValueTrack> mTracks = new ArrayList<>();
+        private Scheduler mScheduler;
+        private boolean mPosted;
+
+        //The interpolations evaluated in the running frame, only valid while the group runs
+        private TimeInterpolator[] mInterpolators = new TimeInterpolator[2];
+        private float[] mFractions = new float[2];
+        private float[] mInterpolations = new float[2];
+        private int mEvaluated;
+
+        public Group(Target target, Scheduler scheduler) {
+            mTarget = target;
+            mScheduler = scheduler;
+        }
+
+        /**
+         * Moves the group and its tracks to another scheduler, running animations carry on from
+         * the same point
+         */
+        public void setScheduler(Scheduler scheduler) {
+            if (scheduler == mScheduler) {
+                return;
+            }
+            mScheduler.cancel(this);
+            mPosted = false;
+            for (int i = 0; i < mTracks.size(); i++) {
+                mTracks.get(i).moveTo(scheduler);
+            }
+            mScheduler = scheduler;
+            for (int i = 0; i < mTracks.size(); i++) {
+                if (mTracks.get(i).mRunning) {
+                    schedule();
+                    break;
+                }
+            }
+        }
+
+        private void schedule() {
+            if (!mPosted) {
+                mPosted = true;
+                mScheduler.postOnFrame(this);
+            }
+        }
+
+        /**
+         * Gets the interpolation of the fraction, evaluating the interpolator only if no other
+         * track of the group did in this frame
+         */
+        private float interpolate(TimeInterpolator interpolator, float fraction) {
+            for (int i = 0; i < mEvaluated; i++) {
+                if (mInterpolators[i] == interpolator && mFractions[i] == fraction) {
+                    return mInterpolations[i];
+                }
+            }
+            float interpolation = interpolator.getInterpolation(fraction);
+            if (mEvaluated == mInterpolators.length) {
+                int size = mEvaluated * 2;
+                TimeInterpolator[] interpolators = new TimeInterpolator[size];
+                float[] fractions = new float[size];
+                float[] interpolations = new float[size];
+                System.arraycopy(mInterpolators, 0, interpolators, 0, mEvaluated);
+                System.arraycopy(mFractions, 0, fractions, 0, mEvaluated);
+                System.arraycopy(mInterpolations, 0, interpolations, 0, mEvaluated);
+                mInterpolators = interpolators;
+                mFractions = fractions;
+                mInterpolations = interpolations;
+            }
+            mInterpolators[mEvaluated] = interpolator;
+            mFractions[mEvaluated] = fraction;
+            mInterpolations[mEvaluated] = interpolation;
+            mEvaluated++;
+            return interpolation;
+        }
+
+        @Override
+        public void run() {
+            mPosted = false;
+            boolean moved = false;
+            mEvaluated = 0;
+            for (int i = 0; i < mTracks.size(); i++) {
+                ValueTrack track = mTracks.get(i);
+                if (track.mRunning) {
+                    track.step();
+                    moved = true;
+                    if (track.mRunning) {
+                        schedule();
+                    }
+                }
+            }
+            //The interpolators are not held on to past the frame
+            for (int i = 0; i < mEvaluated; i++) {
+                mInterpolators[i] = null;
+            }
+            mEvaluated = 0;
+            if (moved) {
+                mTarget.onValues();
+            }
+        }
+    }
+
+    private final Target mTarget;
+    private final Group mGroup;
+    private Scheduler mScheduler;
+
+    private float mValue;
+    private float mFrom;
+    private float mTo;
+    private long mStartTime;
+    private long mDuration;
+    private TimeInterpolator mInterpolator;
+    private boolean mRunning;
+
+    public ValueTrack(Target target, Scheduler scheduler, float value) {
+        mTarget = target;
+        mGroup = null;
+        mScheduler = scheduler;
+        mValue = value;
+    }
+
+    /**
+     * Creates a track that is ticked by the group, it runs on the scheduler of the group
+     */
+    public ValueTrack(Group group, float value) {
+        mTarget = null;
+        mGroup = group;
+        mScheduler = group.mScheduler;
+        mValue = value;
+        group.mTracks.add(this);
+    }
+
+    /**
+     * Moves the track to another scheduler, a running animation carries on from the same point.
+     * A track of a group moves with {@link Group#setScheduler(Scheduler)} instead.
+     */
+    public void setScheduler(Scheduler scheduler) {
+        if (mGroup != null || scheduler == mScheduler) {
+            return;
+        }
+        mScheduler.cancel(this);
+        moveTo(scheduler);
+        if (mRunning) {
+            scheduler.postOnFrame(this);
+        }
+    }
+
+    private void moveTo(Scheduler scheduler) {
+        long elapsed = mScheduler.uptimeMillis() - mStartTime;
+        mScheduler = scheduler;
+        mStartTime = scheduler.uptimeMillis() - elapsed;
+    }
+
+    /**
+     * Animates from the current value to the given value, replacing the running animation
+     */
+    public void animateTo(float value, long duration, TimeInterpolator interpolator) {
+        if (duration <= 0) {
+            jumpTo(value);
+            return;
+        }
+        mFrom = mValue;
+        mTo = value;
+        mDuration = duration;
+        mInterpolator = interpolator;
+        mStartTime = mScheduler.uptimeMillis();
+        if (!mRunning) {
+            mRunning = true;
+            if (mGroup != null) {
+                mGroup.schedule();
+            } else {
+                mScheduler.postOnFrame(this);
+            }
+        }
+    }
+
+    /**
+     * Stops the running animation and sets the value right away
+     */
+    public void jumpTo(float value) {
+        stop();
+        mValue = value;
+        if (mGroup != null) {
+            mGroup.mTarget.onValues();
+        } else {
+            mTarget.onValue(value);
+        }
+    }
+
+    /**
+     * Stops the running animation at its end value
+     */
+    public void finish() {
+        if (mRunning) {
+            jumpTo(mTo);
+        }
+    }
+
+    /**
+     * Stops the running animation where it is. A group that has no running tracks left skips its
+     * next frame.
+     */
+    public void stop() {
+        if (mRunning) {
+            mRunning = false;
+            if (mGroup == null) {
+                mScheduler.cancel(this);
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    public float getValue() {
+        return mValue;
+    }
+
+    @Override
+    public void run() {
+        step();
+        if (mRunning) {
+            mScheduler.postOnFrame(this);
+        }
+        mTarget.onValue(mValue);
+    }
+
+    /**
+     * Moves the value to the current time of the scheduler, the track stops at the end
+     */
+    private void step() {
+        long elapsed = mScheduler.uptimeMillis() - mStartTime;
+        float fraction = mDuration <= 0 ? 1f : Math.min(1f, (float) elapsed / mDuration);
+        if (fraction < 1f) {
+            float interpolation;
+            if (mInterpolator == null) {
+                interpolation = fraction;
+            } else if (mGroup != null) {
+                interpolation = mGroup.interpolate(mInterpolator, fraction);
+            } else {
+                interpolation = mInterpolator.getInterpolation(fraction);
+            }
+            mValue = mFrom + (mTo - mFrom) * interpolation;
+        } else {
+            mValue = mTo;
+            mRunning = false;
+        }
+    }
+}
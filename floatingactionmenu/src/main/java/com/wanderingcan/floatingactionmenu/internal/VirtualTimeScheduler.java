@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * A {@link Scheduler} whose clock only moves when it is told to. Tasks run in the order of their
+ * due time, and tasks that are due at the same time run in the order they were posted. Used to
+ * run the timing of a menu in tests without waiting for the wall clock.
+ */
+public class VirtualTimeScheduler implements Scheduler {
+
+    /**
+     * The time between two frames in milliseconds, frames start at multiples of it
+     */
+    public static final long FRAME_MILLIS = 16;
+
+    private final PriorityQueue<Task> mQueue = new PriorityQueue<>();
+    private long mNow;
+    private long mSequence;
+
+    public VirtualTimeScheduler() {
+        this(0);
+    }
+
+    public VirtualTimeScheduler(long startTime) {
+        mNow = startTime;
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return mNow;
+    }
+
+    @Override
+    public long frameTimeNanos() {
+        return mNow * 1000000;
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        mQueue.add(new Task(mNow + Math.max(0, delayMillis), mSequence++, task));
+    }
+
+    @Override
+    public void postOnFrame(Runnable task) {
+        postDelayed(task, FRAME_MILLIS - mNow % FRAME_MILLIS);
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        Iterator<Task> iterator = mQueue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().runnable == task) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Moves the clock forward, running every task that becomes due on the way at its due time
+     */
+    public void advanceBy(long millis) {
+        advanceTo(mNow + millis);
+    }
+
+    /**
+     * Moves the clock to the given time, running every task that becomes due on the way at its
+     * due time. Tasks posted while advancing run as well if they are due by then.
+     */
+    public void advanceTo(long time) {
+        Task task = mQueue.peek();
+        while (task != null && task.time <= time) {
+            mQueue.poll();
+            mNow = Math.max(mNow, task.time);
+            task.runnable.run();
+            task = mQueue.peek();
+        }
+        mNow = Math.max(mNow, time);
+    }
+
+    /**
+     * Runs every pending task, moving the clock to the due time of each
+     *
+     * @param maxTasks the most tasks to run, guards against tasks that keep posting themselves
+     * @return the number of tasks that were run
+     */
+    public int runAll(int maxTasks) {
+        int run = 0;
+        Task task = mQueue.poll();
+        while (task != null && run < maxTasks) {
+            mNow = Math.max(mNow, task.time);
+            task.runnable.run();
+            run++;
+            task = run < maxTasks ? mQueue.poll() : null;
+        }
+        return run;
+    }
+
+    /**
+     * Gets the number of tasks that have not run yet
+     */
+    public int getPendingCount() {
+        return mQueue.size();
+    }
+
+    /**
+     * Gets the due time of the next task, -1 if there are no pending tasks
+     */
+    public long getNextTaskTime() {
+        Task task = mQueue.peek();
+        return task != null ? task.time : -1;
+    }
+
+    private static final class Task implements Comparable<Task> {
+        final long time;
+        final long sequence;
+        final Runnable runnable;
+
+        Task(long time, long sequence, Runnable runnable) {
+            this.time = time;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (time != other.time) {
+                return time < other.time ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameMonitorTest {
+
+    private static final long FRAME = VirtualTimeScheduler.FRAME_MILLIS;
+
+    private final VirtualTimeScheduler mScheduler = new VirtualTimeScheduler();
+    private final FrameMonitor mMonitor = new FrameMonitor(mScheduler);
+
+    @Test
+    public void framesAtTheRefreshRateDropNothing() {
+        mMonitor.setRefreshRate(1000f / FRAME);
+        mMonitor.start();
+        mScheduler.advanceTo(FRAME * 11);
+
+        assertEquals(10, mMonitor.getFrameCount());
+        assertEquals(0, mMonitor.getDroppedFrames());
+    }
+
+    @Test
+    public void stalledFrameCountsTheSkippedFrames() {
+        mMonitor.setRefreshRate(1000f / FRAME);
+        mMonitor.start();
+        mScheduler.advanceTo(FRAME * 3);
+
+        //The next frame comes three frames late
+        mScheduler.cancel(mMonitor);
+        mScheduler.postDelayed(mMonitor, FRAME * 3);
+        mScheduler.advanceTo(FRAME * 6);
+
+        assertEquals(5, mMonitor.getFrameCount());
+        assertEquals(2, mMonitor.getDroppedFrames());
+    }
+
+    @Test
+    public void fasterDisplayCountsEveryOtherFrameAsDropped() {
+        mMonitor.setRefreshRate(2000f / FRAME);
+        mMonitor.start();
+        mScheduler.advanceTo(FRAME * 5);
+
+        assertEquals(8, mMonitor.getFrameCount());
+        assertEquals(4, mMonitor.getDroppedFrames());
+    }
+
+    @Test
+    public void refreshRateThatIsNotPositiveIsIgnored() {
+        mMonitor.setRefreshRate(1000f / FRAME);
+        mMonitor.setRefreshRate(0f);
+        mMonitor.start();
+        mScheduler.advanceTo(FRAME * 5);
+
+        assertEquals(0, mMonitor.getDroppedFrames());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link MenuStateMachine#setMaxDuration(long)} and the stagger curve move the steps
+ * of a transition
+ */
+public class MenuStateMachineBudgetTest {
+
+    private static final long DELAY = 100;
+    private static final long DURATION = 200;
+
+    private VirtualTimeScheduler mScheduler;
+    private RecordingRenderer mRenderer;
+    private MenuStateMachine mMachine;
+
+    @Before
+    public void setUp() {
+        mScheduler = new VirtualTimeScheduler();
+        mRenderer = new RecordingRenderer(mScheduler, 0, 1, 2);
+        mMachine = new MenuStateMachine(mRenderer, mScheduler);
+        mMachine.setTiming(DELAY, DURATION);
+    }
+
+    @Test
+    public void budgetShortensTheStagger() {
+        mMachine.setMaxDuration(250);
+        mMachine.open();
+
+        mScheduler.runAll(100);
+        //50ms are left for the stagger once the item duration is taken out of the budget
+        assertLog("16 openStarted", "16 show 0", "32 show 1", "49 show 2", "266 openFinished");
+    }
+
+    @Test
+    public void budgetKeepsTheItemDuration() {
+        mMachine.setMaxDuration(100);
+        mMachine.open();
+
+        mScheduler.runAll(100);
+        assertLog("16 openStarted", "16 show 0", "16 show 1", "16 show 2", "216 openFinished");
+    }
+
+    @Test
+    public void budgetAlsoShortensTheClose() {
+        mMachine.setMaxDuration(250);
+        mMachine.restore(true);
+        mMachine.close();
+
+        mScheduler.runAll(100);
+        assertLog("16 closeStarted", "16 hide 2", "32 hide 1", "49 hide 0", "266 closeFinished");
+    }
+
+    @Test
+    public void budgetThatFitsChangesNothing() {
+        mMachine.setMaxDuration(1000);
+        mMachine.open();
+
+        mScheduler.runAll(100);
+        assertLog("16 openStarted", "16 show 0", "116 show 1", "216 show 2", "516 openFinished");
+    }
+
+    @Test
+    public void staggerCurveMovesTheSteps() {
+        mMachine.setStaggerCurve(new MenuStateMachine.StaggerCurve() {
+            @Override
+            public float getOffset(float fraction) {
+                return fraction * fraction;
+            }
+        });
+        mMachine.open();
+
+        mScheduler.runAll(100);
+        assertLog("16 openStarted", "16 show 0", "49 show 1", "149 show 2", "516 openFinished");
+    }
+
+    private void assertLog(String... expected) {
+        assertEquals(Arrays.asList(expected), mRenderer.log);
+    }
+}
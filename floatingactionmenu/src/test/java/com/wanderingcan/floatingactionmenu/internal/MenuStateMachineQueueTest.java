@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that open, close, hide and show requests coalesce into one target state and that a
+ * transition that is running is finished or cut short the right way
+ */
+public class MenuStateMachineQueueTest {
+
+    private static final long DELAY = 100;
+    private static final long DURATION = 200;
+
+    private VirtualTimeScheduler mScheduler;
+    private RecordingRenderer mRenderer;
+    private MenuStateMachine mMachine;
+
+    @Before
+    public void setUp() {
+        mScheduler = new VirtualTimeScheduler();
+        mRenderer = new RecordingRenderer(mScheduler, 0, 1, 2);
+        mMachine = new MenuStateMachine(mRenderer, mScheduler);
+        mMachine.setTiming(DELAY, DURATION);
+    }
+
+    @Test
+    public void requestsWithinAFrameCoalesce() {
+        mMachine.open();
+        mMachine.close();
+        mMachine.toggle();
+        mMachine.toggle();
+        mMachine.open();
+
+        mScheduler.runAll(100);
+        assertEquals(1, mRenderer.count("openStarted"));
+        assertEquals(0, mRenderer.count("closeStarted"));
+        assertEquals(MenuStateMachine.STATE_OPEN, mMachine.getState());
+    }
+
+    @Test
+    public void requestsThatCancelOutDoNothing() {
+        mMachine.open();
+        mMachine.close();
+
+        mScheduler.runAll(100);
+        assertLog();
+        assertEquals(MenuStateMachine.STATE_CLOSED, mMachine.getState());
+    }
+
+    @Test
+    public void closeDuringOpenWaitsForTheOpen() {
+        mMachine.open();
+        mScheduler.advanceTo(150);
+        mMachine.close();
+
+        mScheduler.runAll(100);
+        assertLog("16 openStarted", "16 show 0", "116 show 1", "216 show 2", "516 openFinished",
+                "528 closeStarted", "528 hide 2", "628 hide 1", "728 hide 0",
+                "1028 closeFinished");
+        assertEquals(MenuStateMachine.STATE_CLOSED, mMachine.getState());
+    }
+
+    @Test
+    public void hideCutsAnOpenShort() {
+        mMachine.open();
+        mScheduler.advanceTo(120);
+        mMachine.hide();
+
+        mScheduler.runAll(100);
+        assertEquals(1, mRenderer.count("closeStarted"));
+        assertEquals(0, mRenderer.count("openFinished"));
+        assertEquals(1, mRenderer.count("hidden"));
+        assertEquals(MenuStateMachine.STATE_HIDDEN, mMachine.getState());
+    }
+
+    @Test
+    public void hideDuringHideKeepsHiding() {
+        mMachine.restore(true);
+        mMachine.hide();
+        mScheduler.advanceTo(150);
+        mMachine.hide();
+        mScheduler.advanceTo(650);
+        //Hiding again while the menu button hides, as a scroll does on every event
+        mMachine.hide();
+
+        mScheduler.runAll(100);
+        assertLog("16 closeStarted", "16 hide 0", "116 hide 1", "216 hide 2",
+                "616 hideMenuButton", "816 hidden");
+        assertEquals(MenuStateMachine.STATE_HIDDEN, mMachine.getState());
+        assertEquals(0, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void hideWhileHiddenDoesNothing() {
+        mMachine.hide();
+        mScheduler.runAll(100);
+        mRenderer.log.clear();
+
+        mMachine.hide();
+        mScheduler.runAll(100);
+        assertLog();
+        assertEquals(MenuStateMachine.STATE_HIDDEN, mMachine.getState());
+    }
+
+    @Test
+    public void showCutsAHideShort() {
+        mMachine.restore(true);
+        mMachine.hide();
+        mScheduler.advanceTo(100);
+        assertTrue(mMachine.show());
+
+        mScheduler.runAll(100);
+        //The items the hide did not get to are hidden right away
+        assertLog("16 closeStarted", "16 hide 0", "112 hide 1", "112 hide 2", "112 shown");
+        assertEquals(MenuStateMachine.STATE_CLOSED, mMachine.getState());
+        assertFalse(mMachine.isOpened());
+    }
+
+    @Test
+    public void showOnlyAppliesToAHiddenMenu() {
+        assertFalse(mMachine.show());
+
+        mMachine.hide();
+        mScheduler.runAll(100);
+        assertEquals(MenuStateMachine.STATE_HIDDEN, mMachine.getState());
+
+        mMachine.open();
+        mMachine.toggle();
+        mScheduler.runAll(100);
+        assertEquals(MenuStateMachine.STATE_HIDDEN, mMachine.getState());
+
+        assertTrue(mMachine.show());
+        mScheduler.runAll(100);
+        assertEquals(MenuStateMachine.STATE_CLOSED, mMachine.getState());
+        assertEquals(1, mRenderer.count("shown"));
+    }
+
+    @Test
+    public void showDuringTheMenuButtonHideKeepsItVisible() {
+        ViewRenderer renderer = useViewRenderer();
+        mMachine.restore(true);
+        mMachine.hide();
+        mScheduler.advanceTo(650);
+        assertTrue(renderer.menuButton.pendingHide.isPending());
+        mMachine.show();
+
+        mScheduler.runAll(100);
+        assertEquals(MenuStateMachine.STATE_CLOSED, mMachine.getState());
+        assertTrue(renderer.menuButton.visible);
+        assertEquals(0, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void showDuringTheItemHidesKeepsTheNextOpenVisible() {
+        ViewRenderer renderer = useViewRenderer();
+        mMachine.restore(true);
+        mMachine.hide();
+        mScheduler.advanceTo(100);
+        mMachine.show();
+        mMachine.open();
+
+        mScheduler.runAll(100);
+        assertEquals(MenuStateMachine.STATE_OPEN, mMachine.getState());
+        assertTrue(renderer.menuButton.visible);
+        for (FakeView item : renderer.items) {
+            assertTrue(item.visible);
+        }
+    }
+
+    private void assertLog(String... expected) {
+        assertEquals(Arrays.asList(expected), mRenderer.log);
+    }
+
+    private ViewRenderer useViewRenderer() {
+        ViewRenderer renderer = new ViewRenderer(mScheduler, 0, 1, 2);
+        mRenderer = renderer;
+        mMachine = new MenuStateMachine(renderer, mScheduler);
+        mMachine.setTiming(DELAY, DURATION);
+        return renderer;
+    }
+
+    /**
+     * Shows and hides the way the buttons and labels of a menu do, a hide only takes effect once
+     * its animation is over
+     */
+    private static class FakeView {
+
+        boolean visible = true;
+        final PendingHide pendingHide;
+
+        FakeView(Scheduler scheduler) {
+            pendingHide = new PendingHide(new Runnable() {
+                @Override
+                public void run() {
+                    visible = false;
+                }
+            }, scheduler);
+        }
+
+        void show() {
+            pendingHide.cancel();
+            visible = true;
+        }
+
+        void hide() {
+            if (visible && !pendingHide.isPending()) {
+                pendingHide.post(DURATION);
+            }
+        }
+    }
+
+    /**
+     * Records the calls and shows and hides a menu button and items like the menu does
+     */
+    private static class ViewRenderer extends RecordingRenderer {
+
+        final FakeView menuButton;
+        final FakeView[] items;
+
+        ViewRenderer(Scheduler scheduler, int... steps) {
+            super(scheduler, steps);
+            menuButton = new FakeView(scheduler);
+            items = new FakeView[steps.length];
+            for (int i = 0; i < steps.length; i++) {
+                items[i] = new FakeView(scheduler);
+            }
+        }
+
+        @Override
+        public void onShowItem(int item) {
+            super.onShowItem(item);
+            items[item].show();
+        }
+
+        @Override
+        public void onHideItem(int item) {
+            super.onHideItem(item);
+            items[item].hide();
+        }
+
+        @Override
+        public void onHideMenuButton() {
+            super.onHideMenuButton();
+            menuButton.hide();
+        }
+
+        @Override
+        public void onShown() {
+            super.onShown();
+            menuButton.show();
+        }
+    }
+}
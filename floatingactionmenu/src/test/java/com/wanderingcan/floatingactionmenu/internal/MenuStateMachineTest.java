@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the state machine on a {@link VirtualTimeScheduler} and checks what the renderer is told
+ * and when
+ */
+public class MenuStateMachineTest {
+
+    private static final long DELAY = 100;
+    private static final long DURATION = 200;
+
+    private VirtualTimeScheduler mScheduler;
+    private RecordingRenderer mRenderer;
+    private MenuStateMachine mMachine;
+
+    @Before
+    public void setUp() {
+        mScheduler = new VirtualTimeScheduler();
+        mRenderer = new RecordingRenderer(mScheduler, 0, 1, 2);
+        mMachine = new MenuStateMachine(mRenderer, mScheduler);
+        mMachine.setTiming(DELAY, DURATION);
+    }
+
+    @Test
+    public void openStaggersItems() {
+        mMachine.open();
+        assertEquals(MenuStateMachine.STATE_CLOSED, mMachine.getState());
+
+        mScheduler.runAll(100);
+        assertLog("16 openStarted", "16 show 0", "116 show 1", "216 show 2", "516 openFinished");
+        assertEquals(MenuStateMachine.STATE_OPEN, mMachine.getState());
+        assertTrue(mMachine.isOpened());
+        assertEquals(0, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void closeRunsStepsInReverse() {
+        mMachine.restore(true);
+        mMachine.close();
+
+        mScheduler.runAll(100);
+        assertLog("16 closeStarted", "16 hide 2", "116 hide 1", "216 hide 0",
+                "516 closeFinished");
+        assertEquals(MenuStateMachine.STATE_CLOSED, mMachine.getState());
+        assertFalse(mMachine.isOpened());
+    }
+
+    @Test
+    public void hideClosesItemsThenTheMenuButton() {
+        mMachine.restore(true);
+        mMachine.hide();
+
+        mScheduler.runAll(100);
+        //The menu button waits one more step after the last item
+        assertLog("16 closeStarted", "16 hide 0", "116 hide 1", "216 hide 2",
+                "616 hideMenuButton", "816 hidden");
+        assertEquals(MenuStateMachine.STATE_HIDDEN, mMachine.getState());
+        assertFalse(mMachine.isOpened());
+    }
+
+    @Test
+    public void skipToTargetRunsEverythingAtOnce() {
+        mMachine.open();
+        mMachine.skipToTarget();
+
+        assertLog("0 openStarted", "0 show 0", "0 show 1", "0 show 2", "0 openFinished");
+        assertEquals(MenuStateMachine.STATE_OPEN, mMachine.getState());
+        assertEquals(0, mScheduler.getPendingCount());
+
+        mScheduler.runAll(100);
+        assertEquals(1, mRenderer.count("openStarted"));
+    }
+
+    private void assertLog(String... expected) {
+        assertEquals(Arrays.asList(expected), mRenderer.log);
+    }
+}
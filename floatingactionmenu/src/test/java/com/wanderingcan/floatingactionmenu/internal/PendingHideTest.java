@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PendingHideTest {
+
+    private final VirtualTimeScheduler mScheduler = new VirtualTimeScheduler();
+    private int mHidden;
+    private final PendingHide mPendingHide = new PendingHide(new Runnable() {
+        @Override
+        public void run() {
+            mHidden++;
+        }
+    }, mScheduler);
+
+    @Test
+    public void hidesOnceTheDelayIsOver() {
+        mPendingHide.post(200);
+        mScheduler.advanceTo(199);
+        assertEquals(0, mHidden);
+        assertTrue(mPendingHide.isPending());
+
+        mScheduler.advanceTo(200);
+        assertEquals(1, mHidden);
+        assertFalse(mPendingHide.isPending());
+    }
+
+    @Test
+    public void cancelKeepsTheViewVisible() {
+        mPendingHide.post(200);
+        assertTrue(mPendingHide.cancel());
+        assertFalse(mPendingHide.cancel());
+
+        mScheduler.runAll(10);
+        assertEquals(0, mHidden);
+    }
+
+    @Test
+    public void finishHidesRightAway() {
+        mPendingHide.post(200);
+        mPendingHide.finish();
+        assertEquals(1, mHidden);
+
+        mPendingHide.finish();
+        mScheduler.runAll(10);
+        assertEquals(1, mHidden);
+    }
+
+    @Test
+    public void newSchedulerFinishesThePendingHide() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        mPendingHide.post(200);
+        mPendingHide.setScheduler(scheduler);
+
+        assertEquals(0, mScheduler.getPendingCount());
+        scheduler.runAll(10);
+        assertEquals(1, mHidden);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes down every call with the time of the scheduler
+ */
+class RecordingRenderer implements MenuStateMachine.Renderer {
+
+    final List<String> log = new ArrayList<>();
+    private final Scheduler mScheduler;
+    private final int[] mSteps;
+
+    RecordingRenderer(Scheduler scheduler, int... steps) {
+        mScheduler = scheduler;
+        mSteps = steps;
+    }
+
+    int count(String event) {
+        int count = 0;
+        for (String entry : log) {
+            if (entry.endsWith(" " + event)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void record(String event) {
+        log.add(mScheduler.uptimeMillis() + " " + event);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mSteps.length;
+    }
+
+    @Override
+    public int getStaggerStep(int item) {
+        return mSteps[item];
+    }
+
+    @Override
+    public void onOpenStarted() {
+        record("openStarted");
+    }
+
+    @Override
+    public void onShowItem(int item) {
+        record("show " + item);
+    }
+
+    @Override
+    public void onOpenFinished() {
+        record("openFinished");
+    }
+
+    @Override
+    public void onCloseStarted() {
+        record("closeStarted");
+    }
+
+    @Override
+    public void onHideItem(int item) {
+        record("hide " + item);
+    }
+
+    @Override
+    public void onCloseFinished() {
+        record("closeFinished");
+    }
+
+    @Override
+    public void onHideMenuButton() {
+        record("hideMenuButton");
+    }
+
+    @Override
+    public void onHidden() {
+        record("hidden");
+    }
+
+    @Override
+    public void onShown() {
+        record("shown");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import android.animation.TimeInterpolator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ValueTrackTest {
+
+    private static final long FRAME = VirtualTimeScheduler.FRAME_MILLIS;
+
+    private final VirtualTimeScheduler mScheduler = new VirtualTimeScheduler();
+    private int mUpdates;
+    private final ValueTrack.Group mGroup = new ValueTrack.Group(new ValueTrack.Group.Target() {
+        @Override
+        public void onValues() {
+            mUpdates++;
+        }
+    }, mScheduler);
+
+    @Test
+    public void groupUpdatesItsTargetOncePerFrame() {
+        ValueTrack first = new ValueTrack(mGroup, 0f);
+        ValueTrack second = new ValueTrack(mGroup, 0f);
+        first.animateTo(1f, FRAME * 4, null);
+        second.animateTo(2f, FRAME * 4, null);
+
+        mScheduler.advanceTo(FRAME * 2);
+        assertEquals(2, mUpdates);
+        assertEquals(0.5f, first.getValue(), 0.001f);
+        assertEquals(1f, second.getValue(), 0.001f);
+    }
+
+    @Test
+    public void tracksAtTheSamePointShareTheInterpolation() {
+        CountingInterpolator interpolator = new CountingInterpolator();
+        ValueTrack first = new ValueTrack(mGroup, 0f);
+        ValueTrack second = new ValueTrack(mGroup, 10f);
+        first.animateTo(1f, FRAME * 4, interpolator);
+        second.animateTo(20f, FRAME * 4, interpolator);
+
+        mScheduler.advanceTo(FRAME * 3);
+        assertEquals(3, interpolator.mCalls);
+        assertEquals(0.75f, first.getValue(), 0.001f);
+        assertEquals(17.5f, second.getValue(), 0.001f);
+    }
+
+    @Test
+    public void tracksAtDifferentPointsEvaluateTheirOwn() {
+        CountingInterpolator interpolator = new CountingInterpolator();
+        ValueTrack first = new ValueTrack(mGroup, 0f);
+        ValueTrack second = new ValueTrack(mGroup, 0f);
+        first.animateTo(1f, FRAME * 4, interpolator);
+        second.animateTo(1f, FRAME * 8, interpolator);
+
+        mScheduler.advanceTo(FRAME * 2);
+        assertEquals(4, interpolator.mCalls);
+        assertEquals(0.5f, first.getValue(), 0.001f);
+        assertEquals(0.25f, second.getValue(), 0.001f);
+    }
+
+    private static class CountingInterpolator implements TimeInterpolator {
+        int mCalls;
+
+        @Override
+        public float getInterpolation(float input) {
+            mCalls++;
+            return input;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Christopher Beda
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.wanderingcan.floatingactionmenu.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class VirtualTimeSchedulerTest {
+
+    private final VirtualTimeScheduler mScheduler = new VirtualTimeScheduler();
+    private final List<String> mLog = new ArrayList<>();
+
+    @Test
+    public void tasksRunInDueOrderThenPostOrder() {
+        mScheduler.postDelayed(task("b"), 20);
+        mScheduler.postDelayed(task("a"), 10);
+        mScheduler.postDelayed(task("c"), 20);
+
+        assertEquals(3, mScheduler.runAll(10));
+        assertEquals(Arrays.asList("10 a", "20 b", "20 c"), mLog);
+    }
+
+    @Test
+    public void framesStartAtMultiplesOfTheFrameTime() {
+        mScheduler.advanceTo(20);
+        mScheduler.postOnFrame(task("frame"));
+
+        assertEquals(32, mScheduler.getNextTaskTime());
+        mScheduler.advanceBy(100);
+        assertEquals(Arrays.asList("32 frame"), mLog);
+        assertEquals(120, mScheduler.uptimeMillis());
+    }
+
+    @Test
+    public void advanceOnlyRunsDueTasks() {
+        mScheduler.postDelayed(task("early"), 5);
+        mScheduler.postDelayed(task("late"), 50);
+
+        mScheduler.advanceTo(30);
+        assertEquals(Arrays.asList("5 early"), mLog);
+        assertEquals(1, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void cancelRemovesEveryRun() {
+        Runnable task = task("cancelled");
+        mScheduler.postDelayed(task, 5);
+        mScheduler.postOnFrame(task);
+        mScheduler.cancel(task);
+
+        assertEquals(0, mScheduler.getPendingCount());
+        assertEquals(-1, mScheduler.getNextTaskTime());
+    }
+
+    @Test
+    public void runAllStopsAtTheLimit() {
+        Runnable repeating = new Runnable() {
+            @Override
+            public void run() {
+                mLog.add(mScheduler.uptimeMillis() + " repeat");
+                mScheduler.postOnFrame(this);
+            }
+        };
+        mScheduler.postOnFrame(repeating);
+
+        assertEquals(3, mScheduler.runAll(3));
+        assertEquals(Arrays.asList("16 repeat", "32 repeat", "48 repeat"), mLog);
+        assertEquals(1, mScheduler.getPendingCount());
+    }
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mLog.add(mScheduler.uptimeMillis() + " " + name);
+            }
+        };
+    }
+}